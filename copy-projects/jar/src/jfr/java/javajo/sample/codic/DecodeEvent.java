@@ -0,0 +1,48 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("javajo.sample.codic.Decode")
+@Label("Codic Decode")
+@Category("Codic")
+@Description("Decoding of one API response body")
+@StackTrace(false)
+final class DecodeEvent extends Event {
+
+    @Label("Decoder")
+    String decoder;
+
+    @Label("Bytes")
+    @DataAmount(DataAmount.BYTES)
+    long bytes;
+
+    @Label("Read Time")
+    @Description("Time blocked reading the response body from the network")
+    @Timespan(Timespan.NANOSECONDS)
+    long readTime;
+
+    @Label("Candidates")
+    int candidateCount;
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic;
+
+import java.util.concurrent.CompletionException;
+
+/**
+ * The only class touching event types; {@link CodicEvents} loads it only when Flight Recorder is present.
+ * <p>
+ * A translate event begins on the calling thread but usually ends and commits on the thread completing
+ * the call, which Flight Recorder records as the event thread. The calling thread is kept in
+ * {@code callerThread} instead. Start and duration are taken by {@code begin()} and {@code end()},
+ * so they hold whichever thread calls them.
+ */
+final class JfrRecorder implements CodicEvents.Recorder {
+
+    @Override
+    public Object beginTranslate() {
+        TranslateEvent event = new TranslateEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.callerThread = Thread.currentThread();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitTranslate(Object e, String text, boolean cacheHit, int candidateCount, Throwable error) {
+        TranslateEvent event = (TranslateEvent) e;
+        event.end();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.textLength = text.length();
+        event.cacheHit = cacheHit;
+        if (error == null) {
+            event.status = cacheHit ? 0 : 200;
+            event.candidateCount = candidateCount;
+        } else {
+            if (error instanceof CompletionException && error.getCause() != null) {
+                error = error.getCause();
+            }
+            event.status = error instanceof CodicException ? ((CodicException) error).getStatus() : 0;
+            event.error = String.valueOf(error.getMessage());
+        }
+        event.commit();
+    }
+
+    @Override
+    public Object beginDecode() {
+        DecodeEvent event = new DecodeEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitDecode(Object e, String decoder, long bytes, long readNanos, int candidateCount) {
+        DecodeEvent event = (DecodeEvent) e;
+        event.end();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.decoder = decoder;
+        event.bytes = bytes;
+        event.readTime = readNanos;
+        event.candidateCount = candidateCount;
+        event.commit();
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("javajo.sample.codic.Translate")
+@Label("Codic Translate")
+@Category("Codic")
+@Description("One Codic#translate call, from invocation until its result is available; "
+        + "the event thread is the one that completed the call")
+@StackTrace(false)
+final class TranslateEvent extends Event {
+
+    @Label("Caller Thread")
+    @Description("Thread that invoked the call")
+    Thread callerThread;
+
+    @Label("Text Length")
+    int textLength;
+
+    @Label("Cache Hit")
+    boolean cacheHit;
+
+    @Label("Status")
+    @Description("HTTP status of the answering call, 0 for cache hits and transport failures")
+    int status;
+
+    @Label("Candidates")
+    int candidateCount;
+
+    @Label("Error")
+    String error;
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic;
+
+import com.squareup.okhttp.mockwebserver.Dispatcher;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CodicEventsTest {
+
+    private MockWebServer server;
+
+    @Before
+    public void setup() throws IOException {
+        String json = TestServers.sampleResponse();
+        server = TestServers.newServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                if (request.getPath().contains("error")) {
+                    return new MockResponse().setResponseCode(503);
+                }
+                return new MockResponse().setBody(json);
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void translateAndDecodeEmitEvents() throws IOException {
+        Codic codic = TestServers.codic(server, new HttpTransport.Builder().build());
+        Path file = Files.createTempFile("codic", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("javajo.sample.codic.Translate");
+            recording.enable("javajo.sample.codic.Decode");
+            recording.start();
+            codic.translate("取得");
+            try {
+                codic.translate("error");
+                throw new AssertionError("expected failure");
+            } catch (CodicException expected) {
+                assertThat(expected.getStatus()).isEqualTo(503);
+            }
+            recording.stop();
+            recording.dump(file);
+
+            List<RecordedEvent> translates = new ArrayList<>();
+            List<RecordedEvent> decodes = new ArrayList<>();
+            for (RecordedEvent event : RecordingFile.readAllEvents(file)) {
+                String name = event.getEventType().getName();
+                if (name.equals("javajo.sample.codic.Translate")) {
+                    translates.add(event);
+                } else if (name.equals("javajo.sample.codic.Decode")) {
+                    decodes.add(event);
+                }
+            }
+            assertThat(translates).hasSize(2);
+            assertThat(decodes).hasSize(1);
+
+            RecordedEvent ok = translates.get(0).getInt("status") == 200 ? translates.get(0) : translates.get(1);
+            RecordedEvent failed = ok == translates.get(0) ? translates.get(1) : translates.get(0);
+            assertThat(ok.getInt("textLength")).isEqualTo(2);
+            assertThat(ok.getThread("callerThread").getJavaName()).isEqualTo(Thread.currentThread().getName());
+            assertThat(ok.getInt("candidateCount")).isGreaterThan(0);
+            assertThat(failed.getInt("status")).isEqualTo(503);
+            assertThat(failed.getString("error")).contains("503");
+            assertThat(decodes.get(0).getLong("bytes")).isGreaterThan(0L);
+            assertThat(decodes.get(0).getInt("candidateCount")).isEqualTo(ok.getInt("candidateCount"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
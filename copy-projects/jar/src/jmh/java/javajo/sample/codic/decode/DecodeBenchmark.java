@@ -0,0 +1,139 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.decode;
+
+import com.owlike.genson.GenericType;
+import com.owlike.genson.GensonBuilder;
+import javajo.sample.codic.load.CodicStubServer;
+import javajo.sample.codic.model.Translation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Decodes {@code sample-response.json} and synthetic multi-word responses with each decoder,
+ * plus {@link Utf8TranslationParser} on a direct buffer as a network layer would hand it over.
+ * <p>
+ * Run with {@code gradle jmh}; the gc profiler adds {@code gc.alloc.rate.norm}, the bytes allocated per op.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class DecodeBenchmark {
+
+    private static final GenericType<List<Translation>> TRANSLATIONS = new GenericType<List<Translation>>() {};
+
+    /**
+     * {@code sample} or {@code WORDSxCANDIDATES} for a synthetic response.
+     */
+    @Param({"sample", "10x8", "100x16"})
+    public String payload;
+
+    private byte[] body;
+
+    private ByteBuffer direct;
+
+    private final TranslationDecoder genson = new GensonTranslationDecoder();
+
+    private final TranslationDecoder jsonPullParser = new JsonPullParserTranslationDecoder();
+
+    private final TranslationDecoder utf8 = new Utf8TranslationDecoder();
+
+    private final TranslationDecoder jsonPullParserInterned =
+            new InterningTranslationDecoder(new JsonPullParserTranslationDecoder(), new StringPool(4096));
+
+    private final TranslationDecoder utf8Interned = new InterningTranslationDecoder(new Utf8TranslationDecoder(), new StringPool(4096));
+
+    @Setup
+    public void setup() throws IOException {
+        if (payload.equals("sample")) {
+            body = readResource("sample-response.json");
+        } else {
+            String[] size = payload.split("x");
+            body = CodicStubServer.responseBody("取得", Integer.parseInt(size[0]), Integer.parseInt(size[1]))
+                    .getBytes(StandardCharsets.UTF_8);
+        }
+        direct = ByteBuffer.allocateDirect(body.length);
+        direct.put(body).flip();
+    }
+
+    private static byte[] readResource(String name) throws IOException {
+        try (InputStream in = DecodeBenchmark.class.getClassLoader().getResourceAsStream(name)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    @Benchmark
+    public List<Translation> gensonFreshBuilder() {
+        return new GensonBuilder().useMethods(true).create()
+                .deserialize(new ByteArrayInputStream(body), TRANSLATIONS);
+    }
+
+    @Benchmark
+    public List<Translation> gensonReused() throws IOException {
+        return genson.decode(new ByteArrayInputStream(body));
+    }
+
+    @Benchmark
+    public List<Translation> jsonPullParser() throws IOException {
+        return jsonPullParser.decode(new ByteArrayInputStream(body));
+    }
+
+    @Benchmark
+    public List<Translation> utf8() throws IOException {
+        return utf8.decode(new ByteArrayInputStream(body));
+    }
+
+    @Benchmark
+    public List<Translation> utf8Direct() throws IOException {
+        return Utf8TranslationParser.parse(direct);
+    }
+
+    @Benchmark
+    public List<String> utf8CandidateTexts() throws IOException {
+        return Utf8TranslationParser.parseCandidateTexts(ByteBuffer.wrap(body), null);
+    }
+
+    @Benchmark
+    public List<Translation> jsonPullParserInterned() throws IOException {
+        return jsonPullParserInterned.decode(new ByteArrayInputStream(body));
+    }
+
+    @Benchmark
+    public List<Translation> utf8Interned() throws IOException {
+        return utf8Interned.decode(new ByteArrayInputStream(body));
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.encode;
+
+import com.owlike.genson.GenericType;
+import com.owlike.genson.Genson;
+import com.owlike.genson.GensonBuilder;
+import javajo.sample.codic.load.CodicStubServer;
+import javajo.sample.codic.model.Translation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+/**
+ * Writes translate results as JSON with {@link TranslationJsonWriter}, that is with the
+ * {@code encodeList} generated by the JsonPullParser processor, and with Genson's serializer.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class EncodeBenchmark {
+
+    /**
+     * {@code WORDSxCANDIDATES} of the synthetic response.
+     */
+    @Param({"1x4", "10x8", "100x16"})
+    public String payload;
+
+    private final Genson genson = new GensonBuilder().useMethods(true).create();
+
+    private List<Translation> translations;
+
+    @Setup
+    public void setup() {
+        String[] size = payload.split("x");
+        translations = genson.deserialize(
+                CodicStubServer.responseBody("取得", Integer.parseInt(size[0]), Integer.parseInt(size[1])),
+                new GenericType<List<Translation>>() {});
+    }
+
+    @Benchmark
+    public String gensonWriter() {
+        StringWriter writer = new StringWriter();
+        genson.serialize(translations, writer);
+        return writer.toString();
+    }
+
+    @Benchmark
+    public byte[] gensonBytes() {
+        return genson.serializeBytes(translations);
+    }
+
+    @Benchmark
+    public String writer() throws IOException {
+        StringWriter writer = new StringWriter();
+        TranslationJsonWriter.write(translations, writer);
+        return writer.toString();
+    }
+
+    @Benchmark
+    public byte[] outputStream() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TranslationJsonWriter.write(translations, out);
+        return out.toByteArray();
+    }
+}
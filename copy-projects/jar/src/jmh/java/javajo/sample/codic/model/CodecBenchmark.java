@@ -0,0 +1,105 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.model;
+
+import com.owlike.genson.GenericType;
+import com.owlike.genson.Genson;
+import com.owlike.genson.GensonBuilder;
+import javajo.sample.codic.load.CodicStubServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Encodes and decodes translate results with {@link TranslationCodec}, with and without
+ * its string table, against Genson JSON as the cache stores used before.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class CodecBenchmark {
+
+    private static final GenericType<List<Translation>> TRANSLATIONS = new GenericType<List<Translation>>() {};
+
+    /**
+     * {@code WORDSxCANDIDATES} of the synthetic response.
+     */
+    @Param({"1x4", "10x8", "100x16"})
+    public String payload;
+
+    private final Genson genson = new GensonBuilder().useMethods(true).create();
+
+    private final TranslationCodec codec = new TranslationCodec.Builder().build();
+
+    private final TranslationCodec inline = new TranslationCodec.Builder().stringTable(false).build();
+
+    private List<Translation> translations;
+
+    private byte[] json;
+
+    private byte[] encoded;
+
+    private byte[] encodedInline;
+
+    @Setup
+    public void setup() {
+        String[] size = payload.split("x");
+        json = genson.serializeBytes(genson.deserialize(
+                CodicStubServer.responseBody("取得", Integer.parseInt(size[0]), Integer.parseInt(size[1])), TRANSLATIONS));
+        translations = genson.deserialize(json, TRANSLATIONS);
+        encoded = codec.encode(translations);
+        encodedInline = inline.encode(translations);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() {
+        return genson.serializeBytes(translations);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return codec.encode(translations);
+    }
+
+    @Benchmark
+    public byte[] encodeBinaryInline() {
+        return inline.encode(translations);
+    }
+
+    @Benchmark
+    public List<Translation> decodeJson() {
+        return genson.deserialize(json, TRANSLATIONS);
+    }
+
+    @Benchmark
+    public List<Translation> decodeBinary() throws IOException {
+        return codec.decode(encoded);
+    }
+
+    @Benchmark
+    public List<Translation> decodeBinaryInline() throws IOException {
+        return inline.decode(encodedInline);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic;
+
+import com.squareup.okhttp.Interceptor;
+import com.squareup.okhttp.Request;
+import com.squareup.okhttp.Response;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Phase timestamps of one call, carried as the request tag and filled in by {@link #INTERCEPTOR}.
+ */
+final class CallTimings {
+
+    /**
+     * Network interceptor stamping when a connection is ready and when response headers arrive.
+     */
+    static final Interceptor INTERCEPTOR = chain -> {
+        Request request = chain.request();
+        Object tag = request.tag();
+        if (!(tag instanceof CallTimings)) {
+            return chain.proceed(request);
+        }
+        CallTimings timings = (CallTimings) tag;
+        timings.connected = System.nanoTime();
+        Response response = chain.proceed(request);
+        timings.headersReceived = System.nanoTime();
+        return response;
+    };
+
+    final long start = System.nanoTime();
+
+    volatile long connected;
+
+    volatile long headersReceived;
+
+    long connectNanos() {
+        return connected == 0L ? 0L : connected - start;
+    }
+
+    long timeToFirstByteNanos() {
+        return connected == 0L || headersReceived == 0L ? 0L : headersReceived - connected;
+    }
+
+    /**
+     * Counts bytes and the time spent blocked reading the response body.
+     */
+    static final class MeteredInputStream extends FilterInputStream {
+
+        long bytes;
+
+        long readNanos;
+
+        MeteredInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            long start = System.nanoTime();
+            int b = super.read();
+            readNanos += System.nanoTime() - start;
+            if (b >= 0) {
+                bytes++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            long start = System.nanoTime();
+            int n = super.read(buffer, offset, length);
+            readNanos += System.nanoTime() - start;
+            if (n > 0) {
+                bytes += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long start = System.nanoTime();
+            long skipped = super.skip(n);
+            readNanos += System.nanoTime() - start;
+            bytes += skipped;
+            return skipped;
+        }
+    }
+}
@@ -15,15 +15,23 @@
  */
 package javajo.sample.codic;
 
-import com.owlike.genson.GenericType;
-import com.owlike.genson.Genson;
-import com.owlike.genson.GensonBuilder;
+import com.squareup.okhttp.Call;
+import com.squareup.okhttp.Callback;
 import com.squareup.okhttp.HttpUrl;
-import com.squareup.okhttp.OkHttpClient;
 import com.squareup.okhttp.Request;
-import com.squareup.okhttp.Request.Builder;
 import com.squareup.okhttp.Response;
+import com.squareup.okhttp.ResponseBody;
+import javajo.sample.codic.cache.NegativeCache;
+import javajo.sample.codic.cache.TranslationCache;
+import javajo.sample.codic.decode.TranslationDecoder;
+import javajo.sample.codic.decode.TranslationDecoders;
+import javajo.sample.codic.decode.Utf8TranslationDecoder;
+import javajo.sample.codic.limit.AimdConcurrencyLimit;
+import javajo.sample.codic.limit.TokenBucket;
+import javajo.sample.codic.metrics.CodicMetrics;
+import javajo.sample.codic.model.Candidates;
 import javajo.sample.codic.model.Translation;
+import javajo.sample.codic.model.Word;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -31,8 +39,26 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
 
 public class Codic {
 
@@ -44,31 +70,107 @@ public class Codic {
 
     private static final String API_ENTRY_URL = "https://api.codic.jp/v1/engine/translate.json";
 
+    private static final String API_URL_PROPERTY_KEY = "codic.api.url";
+
+    private static final String API_URL_ENVIRONMENT_KEY = "CODIC_API_URL";
+
     private static final String CODIC_HTTP_AUTH_HEADER = "Authorization";
 
+    private static final Utf8TranslationDecoder CANDIDATE_DECODER = new Utf8TranslationDecoder();
+
+    private static final Projection<List<String>> CANDIDATE_TEXTS =
+            new Projection<>(Utf8TranslationDecoder.NAME + "-candidates", CANDIDATE_DECODER::decodeCandidateTexts, List::size,
+                    null, text -> Collections.emptyList());
+
     private final String accessToken;
 
+    private final HttpTransport transport;
+
+    private final HttpUrl entry;
+
+    private final TranslationCache cache;
+
+    private final NegativeCache negativeCache;
+
+    private final Projection<List<Translation>> translations;
+
+    private final TokenBucket rateLimit;
+
+    private final AimdConcurrencyLimit concurrencyLimit;
+
+    private final HedgingPolicy hedging;
+
+    private final ConcurrentMap<String, Flight<List<Translation>>> inFlight;
+
+    private final ConcurrentMap<String, Flight<List<String>>> candidatesInFlight;
+
+    private final CodicMetrics metrics;
+
     public Codic() {
+        this(loadAccessToken());
+    }
+
+    public Codic(String accessToken) {
+        this(accessToken, HttpTransport.shared());
+    }
+
+    public Codic(String accessToken, HttpTransport transport) {
+        this(new Builder().accessToken(accessToken).transport(transport));
+    }
+
+    private Codic(Builder builder) {
+        this.accessToken = builder.accessToken != null ? builder.accessToken : loadAccessToken();
+        this.transport = builder.transport;
+        this.entry = builder.entry != null ? builder.entry : parseEntry(loadApiUrl());
+        this.cache = builder.cache;
+        this.negativeCache = builder.negativeCache;
+        TranslationDecoder decoder = builder.decoder != null ? builder.decoder : TranslationDecoders.defaultDecoder();
+        this.translations = new Projection<>(decoder.name(), decoder::decode, CodicEvents::candidateCount,
+                Codic::isUntranslatable, Codic::untranslated);
+        this.rateLimit = builder.rateLimit;
+        this.concurrencyLimit = builder.concurrencyLimit;
+        this.hedging = builder.hedging;
+        this.inFlight = builder.coalesce ? new ConcurrentHashMap<>() : null;
+        this.candidatesInFlight = builder.coalesce ? new ConcurrentHashMap<>() : null;
+        this.metrics = builder.metrics != null ? builder.metrics : new CodicMetrics();
+    }
+
+    private static String loadAccessToken() {
         String key = System.getenv(ENVIRONMENT_KEY);
         if (key != null) {
-            accessToken = key;
-        } else {
-            ClassLoader loader = getClass().getClassLoader();
-            try(InputStream is = getCodicProperties(loader)) {
-                Properties properties = new Properties();
-                properties.load(is);
-                if (!properties.containsKey(PROPERTY_KEY)) {
-                    throw new CodicException("Exception in initialization. Property key[codic.access.token] is missing.");
-                }
-                accessToken = properties.getProperty(PROPERTY_KEY);
-            } catch (IOException e) {
-                throw new CodicException(e);
+            return key;
+        }
+        ClassLoader loader = Codic.class.getClassLoader();
+        try(InputStream is = getCodicProperties(loader)) {
+            Properties properties = new Properties();
+            properties.load(is);
+            if (!properties.containsKey(PROPERTY_KEY)) {
+                throw new CodicException("Exception in initialization. Property key[codic.access.token] is missing.");
             }
+            return properties.getProperty(PROPERTY_KEY);
+        } catch (IOException e) {
+            throw new CodicException(e);
         }
     }
 
-    public Codic(String accessToken) {
-        this.accessToken = accessToken;
+    private static String loadApiUrl() {
+        String url = System.getProperty(API_URL_PROPERTY_KEY);
+        if (url != null && !url.isEmpty()) {
+            return url;
+        }
+        url = System.getenv(API_URL_ENVIRONMENT_KEY);
+        if (url != null && !url.isEmpty()) {
+            return url;
+        }
+        return API_ENTRY_URL;
+    }
+
+    private static HttpUrl parseEntry(String url) {
+        HttpUrl entry = HttpUrl.parse(url);
+        if (entry == null) {
+            throw new CodicException("Exception in initialization. API url[" + url + "] is invalid.");
+        }
+        return entry;
     }
 
     private static InputStream getCodicProperties(ClassLoader cl) throws CodicException {
@@ -88,32 +190,596 @@ public class Codic {
         }
     }
 
+    public CodicMetrics getMetrics() {
+        return metrics;
+    }
+
     public List<Translation> translate(String text) {
-        URL url = new HttpUrl.Builder()
-                .scheme("https")
-                .host("api.codic.jp")
-                .addPathSegment("v1")
-                .addPathSegment("engine")
-                .addPathSegment("translate.json")
-                .addQueryParameter("text", text)
+        return await(translateAsync(text));
+    }
+
+    public CompletableFuture<List<Translation>> translateAsync(String text) {
+        Object event = CodicEvents.beginTranslate();
+        if (cache != null) {
+            List<Translation> cached = cache.get(text);
+            if (cached != null) {
+                if (event != null) {
+                    CodicEvents.commitTranslate(event, text, true, CodicEvents.candidateCount(cached), null);
+                }
+                return CompletableFuture.completedFuture(cached);
+            }
+        }
+        Consumer<List<Translation>> store = cache == null ? null : result -> cache.put(text, result);
+        return lookup(event, text, translations, inFlight, store);
+    }
+
+    public List<String> translateCandidates(String text) {
+        return await(translateCandidatesAsync(text));
+    }
+
+    /**
+     * Candidate texts of all words, flattened in response order.
+     * <p>
+     * Without a cache only the candidate texts are decoded from the response;
+     * with one the full result is fetched and cached, and the texts are taken from it.
+     */
+    public CompletableFuture<List<String>> translateCandidatesAsync(String text) {
+        if (cache != null) {
+            return translateAsync(text).thenApply(Codic::candidateTexts);
+        }
+        return lookup(CodicEvents.beginTranslate(), text, CANDIDATE_TEXTS, candidatesInFlight, null);
+    }
+
+    private <T> CompletableFuture<T> lookup(Object event, String text, Projection<T> projection,
+                                            ConcurrentMap<String, Flight<T>> flights, Consumer<T> store) {
+        boolean verify = false;
+        if (negativeCache != null && negativeCache.mightContain(text)) {
+            if (!negativeCache.shouldVerify()) {
+                if (event != null) {
+                    CodicEvents.commitTranslate(event, text, true, 0, null);
+                }
+                return CompletableFuture.completedFuture(projection.untranslated.apply(text));
+            }
+            verify = true;
+        }
+        Predicate<T> untranslatable = projection.untranslatable;
+        if (negativeCache != null && untranslatable != null) {
+            Consumer<T> remember = result -> {
+                if (untranslatable.test(result)) {
+                    negativeCache.put(text);
+                }
+            };
+            store = store == null ? remember : store.andThen(remember);
+        }
+        CompletableFuture<T> future = fetch(text, projection, flights, store);
+        if (verify && untranslatable != null) {
+            // on the caller's own future: a verification that joins another caller's flight never runs its store
+            future.thenAccept(result -> negativeCache.recordVerification(untranslatable.test(result)));
+        }
+        return traced(event, text, future, projection);
+    }
+
+    /**
+     * Only a successful answer without candidates is a permanent miss;
+     * {@code successful=false} may be a transient failure and is not remembered.
+     */
+    private static boolean isUntranslatable(List<Translation> translations) {
+        if (translations == null) {
+            return false;
+        }
+        for (Translation translation : translations) {
+            if (translation != null && translation.isSuccessful()) {
+                return CodicEvents.candidateCount(translations) == 0;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Stand-in answer for a text the negative cache knows the API cannot translate:
+     * a successful translation without words, as the API itself answers.
+     */
+    private static List<Translation> untranslated(String text) {
+        Translation translation = new Translation();
+        translation.setSuccessful(true);
+        translation.setText(text);
+        translation.setWords(Collections.emptyList());
+        return Collections.singletonList(translation);
+    }
+
+    private static List<String> candidateTexts(List<Translation> translations) {
+        List<String> texts = new ArrayList<>();
+        for (Translation translation : translations) {
+            if (translation == null || translation.getWords() == null) {
+                continue;
+            }
+            for (Word word : translation.getWords()) {
+                if (word == null || word.getCandidates() == null) {
+                    continue;
+                }
+                for (Candidates candidate : word.getCandidates()) {
+                    if (candidate != null && candidate.getText() != null) {
+                        texts.add(candidate.getText());
+                    }
+                }
+            }
+        }
+        return texts;
+    }
+
+    private static <T> CompletableFuture<T> traced(Object event, String text, CompletableFuture<T> future, Projection<T> projection) {
+        if (event != null) {
+            future.whenComplete((result, e) -> CodicEvents.commitTranslate(event, text, false,
+                    result == null ? 0 : projection.candidateCount.applyAsInt(result), e));
+        }
+        return future;
+    }
+
+    private <T> CompletableFuture<T> fetch(String text, Projection<T> projection,
+                                           ConcurrentMap<String, Flight<T>> flights, Consumer<T> store) {
+        if (flights == null) {
+            CompletableFuture<T> future = call(text, projection);
+            if (store != null) {
+                future.thenAccept(result -> store(store, result));
+            }
+            return future;
+        }
+        Flight<T> created = new Flight<>(text, flights);
+        Flight<T> flight;
+        while ((flight = flights.putIfAbsent(text, created)) != null) {
+            CompletableFuture<T> joined = flight.join();
+            if (joined != null) {
+                return joined;
+            }
+            // every waiter of that flight has cancelled; replace it rather than join a cancelled call
+            flights.remove(text, flight);
+        }
+        CompletableFuture<T> source = call(text, projection);
+        created.source = source;
+        source.whenComplete((result, e) -> {
+            try {
+                if (e == null && store != null) {
+                    store(store, result);
+                }
+            } finally {
+                flights.remove(text, created);
+                if (e == null) {
+                    created.shared.complete(result);
+                } else {
+                    created.shared.completeExceptionally(e);
+                }
+            }
+        });
+        return created.view();
+    }
+
+    /**
+     * Stores a result; a failing cache is counted but never fails the callers, who already have the answer.
+     */
+    private <T> void store(Consumer<T> store, T result) {
+        try {
+            store.accept(result);
+        } catch (RuntimeException e) {
+            metrics.recordCacheError();
+        }
+    }
+
+    /**
+     * How a call decodes the response body.
+     */
+    private static final class Projection<T> {
+
+        private final String name;
+
+        private final BodyDecoder<T> decoder;
+
+        private final ToIntFunction<T> candidateCount;
+
+        /**
+         * Whether an answer shows the API cannot translate the text, or {@code null} if the
+         * projection cannot tell that from a transient failure; such answers are never remembered.
+         */
+        private final Predicate<T> untranslatable;
+
+        private final Function<String, T> untranslated;
+
+        private Projection(String name, BodyDecoder<T> decoder, ToIntFunction<T> candidateCount,
+                           Predicate<T> untranslatable, Function<String, T> untranslated) {
+            this.name = name;
+            this.decoder = decoder;
+            this.candidateCount = candidateCount;
+            this.untranslatable = untranslatable;
+            this.untranslated = untranslated;
+        }
+    }
+
+    private interface BodyDecoder<T> {
+        T decode(InputStream in) throws IOException;
+    }
+
+    /**
+     * One network call shared by every concurrent caller asking for the same text.
+     * Each caller gets its own future; the call is cancelled only when all of them cancel,
+     * and is then removed from {@code flights} before anyone else can join it.
+     */
+    private static final class Flight<T> {
+
+        private final CompletableFuture<T> shared = new CompletableFuture<>();
+
+        private final String text;
+
+        private final ConcurrentMap<String, Flight<T>> flights;
+
+        /**
+         * Starts at one for the caller that creates the flight, and becomes -1 once all waiters cancelled.
+         */
+        private final AtomicInteger waiters = new AtomicInteger(1);
+
+        private volatile CompletableFuture<T> source;
+
+        private Flight(String text, ConcurrentMap<String, Flight<T>> flights) {
+            this.text = text;
+            this.flights = flights;
+        }
+
+        /**
+         * Returns a future for another caller, or {@code null} if the flight has already been cancelled.
+         */
+        private CompletableFuture<T> join() {
+            for (int n = waiters.get(); n >= 0; n = waiters.get()) {
+                if (waiters.compareAndSet(n, n + 1)) {
+                    return view();
+                }
+            }
+            return null;
+        }
+
+        private CompletableFuture<T> view() {
+            CompletableFuture<T> view = shared.thenApply(Function.identity());
+            view.whenComplete((result, e) -> {
+                if (view.isCancelled() && waiters.decrementAndGet() == 0 && waiters.compareAndSet(0, -1)) {
+                    flights.remove(text, this);
+                    CompletableFuture<T> s = source;
+                    if (s != null) {
+                        s.cancel(true);
+                    }
+                }
+            });
+            return view;
+        }
+    }
+
+    private <T> CompletableFuture<T> call(String text, Projection<T> projection) {
+        return hedging == null ? attempt(text, projection) : hedged(text, projection);
+    }
+
+    /**
+     * Sends the primary attempt and, if it has not answered after the policy's delay, a hedge.
+     * Failures are not retried: a primary failing before the hedge is sent fails the call,
+     * and once both are out the call fails only when both have failed.
+     */
+    private <T> CompletableFuture<T> hedged(String text, Projection<T> projection) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger outstanding = new AtomicInteger(1);
+        AtomicBoolean settled = new AtomicBoolean();
+        CompletableFuture<T> primary = attempt(text, projection);
+        hedging.onRequest();
+        long start = System.nanoTime();
+        primary.whenComplete((value, e) -> {
+            // A primary cancelled because the hedge won, or the caller gave up, still
+            // took at least this long; dropping it would bias the delay towards fast calls.
+            // A failure says nothing about how long an answer takes, and fast ones would pull the delay down.
+            if (e == null || primary.isCancelled()) {
+                hedging.recordLatency(System.nanoTime() - start);
+            }
+            if (e == null) {
+                if (settled.compareAndSet(false, true)) {
+                    result.complete(value);
+                }
+            } else if (outstanding.decrementAndGet() == 0) {
+                result.completeExceptionally(e);
+            }
+        });
+        ScheduledFuture<?> timer = CodicExecutors.timer().schedule(() -> {
+            if (result.isDone() || !hedging.tryAcquireHedge()) {
+                return;
+            }
+            outstanding.incrementAndGet();
+            CompletableFuture<T> hedge = attempt(text, projection);
+            hedge.whenComplete((value, e) -> {
+                if (e == null) {
+                    if (settled.compareAndSet(false, true)) {
+                        hedging.onHedgeWon();
+                        // the losing primary is sampled before the caller sees the answer
+                        primary.cancel(true);
+                        result.complete(value);
+                    }
+                } else if (outstanding.decrementAndGet() == 0) {
+                    result.completeExceptionally(e);
+                }
+            });
+            result.whenComplete((value, e) -> hedge.cancel(true));
+        }, hedging.delayNanos(), TimeUnit.NANOSECONDS);
+        result.whenComplete((value, e) -> {
+            timer.cancel(false);
+            primary.cancel(true);
+        });
+        return result;
+    }
+
+    private <T> CompletableFuture<T> attempt(String text, Projection<T> projection) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Runnable send = rateLimit == null ? () -> send(text, projection, future) : () -> {
+            long delay = rateLimit.reserve();
+            if (delay == 0L) {
+                send(text, projection, future);
+            } else {
+                CodicExecutors.timer().schedule(() -> send(text, projection, future), delay, TimeUnit.NANOSECONDS);
+            }
+        };
+        if (concurrencyLimit == null) {
+            send.run();
+        } else {
+            concurrencyLimit.execute(send);
+        }
+        return future;
+    }
+
+    private <T> void send(String text, Projection<T> projection, CompletableFuture<T> future) {
+        if (future.isDone()) {
+            // cancelled while waiting for a slot or a token
+            releaseLimit(Outcome.IGNORED, 0L);
+            return;
+        }
+        CallTimings timings = new CallTimings();
+        Call call;
+        try {
+            call = transport.client().newCall(newRequest(text, timings));
+        } catch (RuntimeException e) {
+            releaseLimit(Outcome.IGNORED, 0L);
+            future.completeExceptionally(e);
+            return;
+        }
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Request request, IOException e) {
+                boolean cancelled = call.isCanceled();
+                if (!cancelled) {
+                    metrics.recordError(CodicMetrics.IO_ERROR);
+                }
+                releaseLimit(cancelled ? Outcome.IGNORED : Outcome.DROPPED, 0L);
+                future.completeExceptionally(new CodicException("Exception in calling API[" + entry + "].", e));
+            }
+
+            @Override
+            public void onResponse(Response response) {
+                int code = response.code();
+                try {
+                    T result = readResponse(response, timings, projection);
+                    releaseLimit(Outcome.SUCCEEDED, System.nanoTime() - timings.start);
+                    future.complete(result);
+                } catch (CodicException e) {
+                    releaseLimit(code == 429 || code >= 500 ? Outcome.DROPPED : Outcome.IGNORED, 0L);
+                    future.completeExceptionally(e);
+                } catch (IOException | RuntimeException e) {
+                    // decoders report malformed bodies as IOException, JsonBindingException or IllegalStateException;
+                    // the server did answer, so the body says nothing about its load
+                    if (!call.isCanceled()) {
+                        metrics.recordError(CodicMetrics.DECODE_ERROR);
+                    }
+                    releaseLimit(Outcome.IGNORED, 0L);
+                    future.completeExceptionally(new CodicException("Exception in calling API[" + entry + "].", e));
+                }
+            }
+        });
+        future.whenComplete((result, e) -> {
+            if (future.isCancelled()) {
+                call.cancel();
+            }
+        });
+    }
+
+    private enum Outcome {
+        SUCCEEDED, DROPPED, IGNORED
+    }
+
+    private void releaseLimit(Outcome outcome, long rttNanos) {
+        if (concurrencyLimit == null) {
+            return;
+        }
+        switch (outcome) {
+            case SUCCEEDED:
+                concurrencyLimit.onSuccess(rttNanos);
+                break;
+            case DROPPED:
+                concurrencyLimit.onDropped();
+                break;
+            default:
+                concurrencyLimit.onIgnored();
+        }
+    }
+
+    public Map<String, List<Translation>> translateAll(Collection<String> texts) {
+        Map<String, CompletableFuture<List<Translation>>> futures = new LinkedHashMap<>();
+        for (String text : texts) {
+            futures.computeIfAbsent(text, this::translateAsync);
+        }
+        Map<String, List<Translation>> results = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<String, CompletableFuture<List<Translation>>> entry : futures.entrySet()) {
+                results.put(entry.getKey(), await(entry.getValue()));
+            }
+        } catch (CodicException e) {
+            futures.values().forEach(f -> f.cancel(true));
+            throw e;
+        }
+        return results;
+    }
+
+    static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CodicException) {
+                throw (CodicException) cause;
+            }
+            throw new CodicException(cause);
+        }
+    }
+
+    private Request newRequest(String text, CallTimings timings) {
+        URL url = entry.newBuilder()
+                .addEncodedQueryParameter("text", encodeQueryValue(text))
                 .build()
                 .url();
-        Request request = new Builder()
+        return new Request.Builder()
                 .url(url)
                 .addHeader(CODIC_HTTP_AUTH_HEADER, "Bearer " + accessToken)
                 .get()
+                .tag(timings)
                 .build();
-        try {
-            Response response = new OkHttpClient().newCall(request).execute();
-            int code = response.code();
-            if (code != 200) {
-                throw new CodicException("Exception in calling API[" + API_ENTRY_URL + "] with status " + code + ".");
-            }
-            Genson genson = new GensonBuilder().useMethods(true).create();
-            String string = response.body().string();
-            return genson.deserialize(string, new GenericType<List<Translation>>() {});
-        } catch (IOException e) {
-            throw new CodicException("Exception in calling API[" + API_ENTRY_URL + "].", e);
+    }
+
+    /**
+     * Percent-encodes everything but unreserved characters; OkHttp leaves some, such as a
+     * backslash, as they are and the call then fails on its dispatcher thread.
+     */
+    private static String encodeQueryValue(String value) {
+        StringBuilder encoded = new StringBuilder(value.length() * 3);
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            if ('a' <= b && b <= 'z' || 'A' <= b && b <= 'Z' || '0' <= b && b <= '9'
+                    || b == '-' || b == '.' || b == '_' || b == '~') {
+                encoded.append((char) b);
+            } else {
+                encoded.append('%').append(Character.toUpperCase(Character.forDigit(b >> 4 & 0xF, 16)))
+                        .append(Character.toUpperCase(Character.forDigit(b & 0xF, 16)));
+            }
+        }
+        return encoded.toString();
+    }
+
+    private <T> T readResponse(Response response, CallTimings timings, Projection<T> projection) throws IOException {
+        int code = response.code();
+        if (code != 200) {
+            response.body().close();
+            metrics.recordError(String.valueOf(code));
+            throw new CodicException("Exception in calling API[" + entry + "] with status " + code + ".", code);
+        }
+        try (ResponseBody body = response.body();
+             CallTimings.MeteredInputStream in = new CallTimings.MeteredInputStream(body.byteStream())) {
+            Object event = CodicEvents.beginDecode();
+            long decodeStart = System.nanoTime();
+            T result = projection.decoder.decode(in);
+            long end = System.nanoTime();
+            if (event != null) {
+                CodicEvents.commitDecode(event, projection.name, in.bytes, in.readNanos, projection.candidateCount.applyAsInt(result));
+            }
+            metrics.recordResponse(end - timings.start, timings.connectNanos(), timings.timeToFirstByteNanos(),
+                    in.readNanos, end - decodeStart - in.readNanos, in.bytes);
+            return result;
+        }
+    }
+
+    public static class Builder {
+
+        private String accessToken;
+
+        private HttpTransport transport = HttpTransport.shared();
+
+        private HttpUrl entry;
+
+        private TranslationCache cache;
+
+        private TranslationDecoder decoder;
+
+        private NegativeCache negativeCache;
+
+        private TokenBucket rateLimit;
+
+        private AimdConcurrencyLimit concurrencyLimit;
+
+        private HedgingPolicy hedging;
+
+        private boolean coalesce = true;
+
+        private CodicMetrics metrics;
+
+        public Builder accessToken(String accessToken) {
+            this.accessToken = accessToken;
+            return this;
+        }
+
+        public Builder transport(HttpTransport transport) {
+            this.transport = transport;
+            return this;
+        }
+
+        public Builder cache(TranslationCache cache) {
+            this.cache = cache;
+            return this;
+        }
+
+        /**
+         * Remembers texts the API returned no candidates for, and answers them without a call.
+         */
+        public Builder negativeCache(NegativeCache negativeCache) {
+            this.negativeCache = negativeCache;
+            return this;
+        }
+
+        public Builder decoder(TranslationDecoder decoder) {
+            this.decoder = decoder;
+            return this;
+        }
+
+        public Builder rateLimit(TokenBucket rateLimit) {
+            this.rateLimit = rateLimit;
+            return this;
+        }
+
+        public Builder concurrencyLimit(AimdConcurrencyLimit concurrencyLimit) {
+            this.concurrencyLimit = concurrencyLimit;
+            return this;
+        }
+
+        public Builder hedging(HedgingPolicy hedging) {
+            this.hedging = hedging;
+            return this;
+        }
+
+        /**
+         * Whether concurrent calls for the same text share one request. Enabled by default.
+         */
+        public Builder coalesce(boolean coalesce) {
+            this.coalesce = coalesce;
+            return this;
+        }
+
+        /**
+         * Metrics to record into, e.g. to share them between instances. Each instance gets its own by default.
+         */
+        public Builder metrics(CodicMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * URL of the translate API. Defaults to system property {@code codic.api.url},
+         * then environment variable {@code CODIC_API_URL}, then the public Codic endpoint.
+         */
+        public Builder entry(String url) {
+            this.entry = parseEntry(url);
+            return this;
+        }
+
+        public Builder entry(HttpUrl entry) {
+            this.entry = entry;
+            return this;
+        }
+
+        public Codic build() {
+            return new Codic(this);
         }
     }
 }
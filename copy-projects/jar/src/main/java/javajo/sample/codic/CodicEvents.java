@@ -0,0 +1,99 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic;
+
+import javajo.sample.codic.model.Candidates;
+import javajo.sample.codic.model.Translation;
+import javajo.sample.codic.model.Word;
+
+import java.util.List;
+
+/**
+ * Emits Flight Recorder events for translations and decoding.
+ * <p>
+ * The event types live in the optional {@code jfr} source set, which is only compiled on JDKs
+ * shipping {@code jdk.jfr}. This class finds them reflectively and hands events around as
+ * {@code Object}, so the library builds and loads without them; then every method is a no-op.
+ */
+final class CodicEvents {
+
+    private static final String RECORDER_CLASS = "javajo.sample.codic.JfrRecorder";
+
+    private static final Recorder RECORDER = loadRecorder();
+
+    private CodicEvents() {}
+
+    /**
+     * Implemented by {@code JfrRecorder} in the {@code jfr} source set.
+     */
+    interface Recorder {
+
+        Object beginTranslate();
+
+        void commitTranslate(Object event, String text, boolean cacheHit, int candidateCount, Throwable error);
+
+        Object beginDecode();
+
+        void commitDecode(Object event, String decoder, long bytes, long readNanos, int candidateCount);
+    }
+
+    private static Recorder loadRecorder() {
+        ClassLoader loader = CodicEvents.class.getClassLoader();
+        try {
+            Class.forName("jdk.jfr.Event", false, loader);
+            return (Recorder) Class.forName(RECORDER_CLASS, true, loader).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    static Object beginTranslate() {
+        return RECORDER != null ? RECORDER.beginTranslate() : null;
+    }
+
+    static void commitTranslate(Object event, String text, boolean cacheHit, int candidateCount, Throwable error) {
+        if (event != null) {
+            RECORDER.commitTranslate(event, text, cacheHit, candidateCount, error);
+        }
+    }
+
+    static Object beginDecode() {
+        return RECORDER != null ? RECORDER.beginDecode() : null;
+    }
+
+    static void commitDecode(Object event, String decoder, long bytes, long readNanos, int candidateCount) {
+        if (event != null) {
+            RECORDER.commitDecode(event, decoder, bytes, readNanos, candidateCount);
+        }
+    }
+
+    static int candidateCount(List<Translation> translations) {
+        if (translations == null) {
+            return 0;
+        }
+        int count = 0;
+        for (Translation translation : translations) {
+            if (translation == null || translation.getWords() == null) {
+                continue;
+            }
+            for (Word word : translation.getWords()) {
+                List<Candidates> candidates = word == null ? null : word.getCandidates();
+                count += candidates == null ? 0 : candidates.size();
+            }
+        }
+        return count;
+    }
+}
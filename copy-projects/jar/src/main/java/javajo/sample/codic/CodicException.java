@@ -17,15 +17,33 @@ package javajo.sample.codic;
 
 public class CodicException extends RuntimeException {
 
+    private static final long serialVersionUID = 1L;
+
+    private final int status;
+
     public CodicException(String message) {
+        this(message, 0);
+    }
+
+    public CodicException(String message, int status) {
         super(message);
+        this.status = status;
     }
 
     public CodicException(String message, Throwable cause) {
         super(message, cause);
+        this.status = 0;
     }
 
     public CodicException(Throwable cause) {
         super(cause);
+        this.status = 0;
+    }
+
+    /**
+     * @return HTTP status of the failed API call, or {@code 0} when no response was received.
+     */
+    public int getStatus() {
+        return status;
     }
 }
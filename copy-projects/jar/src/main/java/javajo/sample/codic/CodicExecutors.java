@@ -0,0 +1,89 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors for running {@link HttpTransport} calls.
+ * <p>
+ * Virtual threads are looked up reflectively so that the library still
+ * compiles and runs on JDK 8.
+ */
+public final class CodicExecutors {
+
+    private static final Method NEW_VIRTUAL_THREAD_EXECUTOR = findVirtualThreadFactoryMethod();
+
+    private static final class TimerHolder {
+        private static final ScheduledExecutorService TIMER =
+                Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("codic-timer"));
+    }
+
+    private CodicExecutors() {}
+
+    private static Method findVirtualThreadFactoryMethod() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    public static boolean isVirtualThreadAvailable() {
+        return NEW_VIRTUAL_THREAD_EXECUTOR != null;
+    }
+
+    public static ExecutorService virtualThreads() {
+        if (NEW_VIRTUAL_THREAD_EXECUTOR == null) {
+            throw new UnsupportedOperationException("Virtual threads are not available on Java " + System.getProperty("java.version") + ".");
+        }
+        try {
+            return (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invoke(null);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new UnsupportedOperationException("Virtual threads are not available.", e);
+        }
+    }
+
+    public static ExecutorService platformThreads() {
+        return Executors.newCachedThreadPool(daemonThreadFactory("codic-dispatcher"));
+    }
+
+    public static ExecutorService virtualThreadsOrPlatformThreads() {
+        return isVirtualThreadAvailable() ? virtualThreads() : platformThreads();
+    }
+
+    /**
+     * Shared timer for delayed sends; tasks scheduled here must only hand work off.
+     */
+    static ScheduledExecutorService timer() {
+        return TimerHolder.TIMER;
+    }
+
+    static ThreadFactory daemonThreadFactory(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -15,18 +15,63 @@
  */
 package javajo.sample.codic;
 
-import javajo.sample.codic.model.Candidates;
+import javajo.sample.codic.cache.MappedTranslationStore;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.util.Arrays;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
 public class CodicMain {
 
     private static final String USAGE_TXT = "usage.txt";
 
+    private static final String CACHE_FILE_PROPERTY = "codic.cache.file";
+
+    private static final String DEFAULT_CACHE_FILE = ".codic/translations.db";
+
+    private static final String PARALLELISM_OPTION = "-p";
+
+    private static final String PARALLELISM_LONG_OPTION = "--parallelism=";
+
+    private static final String FILE_OPTION = "-f";
+
+    private static final String FILE_LONG_OPTION = "--file=";
+
+    private static final String STDIN_OPTION = "-";
+
+    private static final String STDIN_LONG_OPTION = "--stdin";
+
+    private static final String NDJSON_OPTION = "--ndjson";
+
+    private static final String ENCODING_LONG_OPTION = "--encoding=";
+
+    private static final int DEFAULT_PARALLELISM = 8;
+
+    private static final int WINDOW_PER_REQUEST = 4;
+
+    private static final int EXIT_SUCCESS = 0;
+
+    private static final int EXIT_FAILURE = 1;
+
     public static void main(String... args) {
         if (args.length == 0) {
             ClassLoader loader = CodicMain.class.getClassLoader();
@@ -34,32 +79,299 @@ public class CodicMain {
                 st.forEach(System.out::println);
             }
         } else {
-            new CodicMain(args).translate();
+            int status;
+            try (MappedTranslationStore store = openStore()) {
+                status = run(new Codic.Builder(), store, System.in, System.out, System.err, args);
+            } catch (IOException e) {
+                System.err.println("Exception in closing translation cache: " + e.getMessage());
+                status = EXIT_FAILURE;
+            }
+            if (status != EXIT_SUCCESS) {
+                System.exit(status);
+            }
         }
     }
 
-    private final List<String> texts;
-
-    private void translate() {
-        for (String str : texts) {
-            String text = str.trim();
-            System.out.println(text);
-            Codic codic = new Codic();
-            codic.translate(text)
-                    .stream()
-                    .flatMap(tr -> tr.getWords().stream())
-                    .flatMap(ws -> ws.getCandidates().stream())
-                    .map(Candidates::getText)
-                    .map(s -> "    " + s)
-                    .forEach(System.out::println);
+    /**
+     * Translates the keywords given by {@code args}, reporting usage, read, API and write failures on {@code err}.
+     * {@code in} and {@code out} are left open.
+     *
+     * @return the exit status: {@code 0} if every keyword was translated and written, {@code 1} otherwise.
+     */
+    static int run(Codic.Builder builder, MappedTranslationStore store,
+                    InputStream in, OutputStream out, PrintStream err, String... args) {
+        CodicMain main;
+        try {
+            main = new CodicMain(args);
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            try (Stream<String> st = loadResource(CodicMain.class.getClassLoader())) {
+                st.forEach(err::println);
+            }
+            return EXIT_FAILURE;
+        }
+        return main.translate(builder.cache(store), in, out, err);
+    }
+
+    private final List<String> texts = new ArrayList<>();
+
+    private int parallelism = DEFAULT_PARALLELISM;
+
+    private String input;
+
+    private boolean ndjson;
+
+    private Charset encoding = Charset.defaultCharset();
+
+    private boolean failed;
+
+    private Codic codic;
+
+    private Writer out;
+
+    private ArrayDeque<Pending> pending;
+
+    private Map<String, CompletableFuture<List<String>>> inWindow;
+
+    /**
+     * Keeps up to {@code parallelism * 4} keywords in flight and writes each
+     * result, in input order, as soon as the oldest pending one completes.
+     * Output is flushed whenever the next step would block, on a result or on
+     * input. Memory stays bounded however many lines are piped in.
+     */
+    private int translate(Codic.Builder builder, InputStream in, OutputStream stdout, PrintStream err) {
+        codic = builder
+                .transport(new HttpTransport.Builder().maxInFlight(parallelism).build())
+                .build();
+        pending = new ArrayDeque<>(parallelism * WINDOW_PER_REQUEST);
+        inWindow = new HashMap<>();
+        BufferedReader reader;
+        try {
+            reader = openInput(in);
+        } catch (IOException e) {
+            err.println("Exception in reading keywords[" + input + "]: " + e.getMessage());
+            return EXIT_FAILURE;
+        }
+        out = new BufferedWriter(new OutputStreamWriter(stdout, encoding));
+        try {
+            try {
+                for (String text : texts) {
+                    offer(text);
+                }
+                if (reader != null) {
+                    for (String line = nextLine(reader); line != null; line = nextLine(reader)) {
+                        offer(line);
+                    }
+                }
+                while (!pending.isEmpty()) {
+                    write(pending.poll());
+                }
+            } finally {
+                out.flush();
+            }
+            return failed ? EXIT_FAILURE : EXIT_SUCCESS;
+        } catch (UncheckedIOException e) {
+            err.println("Exception in reading keywords[" + input + "]: " + e.getCause().getMessage());
+        } catch (CodicException e) {
+            err.println(e.getMessage());
+        } catch (IOException e) {
+            err.println("Exception in writing translations: " + e.getMessage());
+        } finally {
+            if (reader != null && !STDIN_OPTION.equals(input)) {
+                try {
+                    reader.close();
+                } catch (IOException ignored) {
+                    // nothing was lost: every keyword has been read
+                }
+            }
+        }
+        return EXIT_FAILURE;
+    }
+
+    private void offer(String keyword) throws IOException {
+        String text = keyword.trim();
+        if (text.isEmpty()) {
+            return;
+        }
+        if (pending.size() >= parallelism * WINDOW_PER_REQUEST) {
+            write(pending.poll());
+        }
+        pending.add(new Pending(text, inWindow.computeIfAbsent(text, codic::translateCandidatesAsync)));
+    }
+
+    /**
+     * Reads the next keyword line, flushing finished results first if that has to wait for input.
+     * Read failures are rethrown unchecked to tell them apart from write failures, which stay checked.
+     */
+    private String nextLine(BufferedReader reader) throws IOException {
+        boolean ready;
+        try {
+            ready = reader.ready();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (!ready) {
+            out.flush();
+        }
+        try {
+            return reader.readLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private BufferedReader openInput(InputStream in) throws IOException {
+        if (input == null) {
+            return null;
+        } else if (input.equals(STDIN_OPTION)) {
+            return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        } else {
+            return Files.newBufferedReader(Paths.get(input), StandardCharsets.UTF_8);
+        }
+    }
+
+    private void write(Pending head) throws IOException {
+        inWindow.remove(head.text, head.future);
+        if (!head.future.isDone()) {
+            out.flush();
+        }
+        List<String> candidates;
+        try {
+            candidates = Codic.await(head.future);
+        } catch (CodicException e) {
+            if (!ndjson) {
+                throw new CodicException("Exception in translating[" + head.text + "]: " + e.getMessage(), e);
+            }
+            failed = true;
+            out.write("{\"text\":");
+            writeJsonString(out, head.text);
+            out.write(",\"error\":");
+            writeJsonString(out, String.valueOf(e.getMessage()));
+            out.write("}\n");
+            return;
+        }
+        if (ndjson) {
+            out.write("{\"text\":");
+            writeJsonString(out, head.text);
+            out.write(",\"candidates\":[");
+            for (int i = 0; i < candidates.size(); i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                writeJsonString(out, candidates.get(i));
+            }
+            out.write("]}\n");
+        } else {
+            out.write(head.text);
+            out.write('\n');
+            for (String candidate : candidates) {
+                out.write("    ");
+                out.write(candidate);
+                out.write('\n');
+            }
+        }
+    }
+
+    private static void writeJsonString(Writer out, String value) throws IOException {
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': out.write("\\\""); break;
+                case '\\': out.write("\\\\"); break;
+                case '\n': out.write("\\n"); break;
+                case '\r': out.write("\\r"); break;
+                case '\t': out.write("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+            }
+        }
+        out.write('"');
+    }
+
+    private static final class Pending {
+
+        private final String text;
+
+        private final CompletableFuture<List<String>> future;
+
+        private Pending(String text, CompletableFuture<List<String>> future) {
+            this.text = text;
+            this.future = future;
         }
     }
 
     private CodicMain(String... args) {
-        texts = Arrays.asList(args);
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (PARALLELISM_OPTION.equals(arg)) {
+                parallelism = parseParallelism(value(args, ++i, arg));
+            } else if (arg.startsWith(PARALLELISM_LONG_OPTION)) {
+                parallelism = parseParallelism(arg.substring(PARALLELISM_LONG_OPTION.length()));
+            } else if (FILE_OPTION.equals(arg)) {
+                input = value(args, ++i, arg);
+            } else if (arg.startsWith(FILE_LONG_OPTION)) {
+                input = arg.substring(FILE_LONG_OPTION.length());
+            } else if (STDIN_OPTION.equals(arg) || STDIN_LONG_OPTION.equals(arg)) {
+                input = STDIN_OPTION;
+            } else if (NDJSON_OPTION.equals(arg)) {
+                ndjson = true;
+            } else if (arg.startsWith(ENCODING_LONG_OPTION)) {
+                encoding = parseEncoding(arg.substring(ENCODING_LONG_OPTION.length()));
+            } else {
+                texts.add(arg);
+            }
+        }
+    }
+
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Option " + option + " requires a value.");
+        }
+        return args[index];
+    }
+
+    private static int parseParallelism(String value) {
+        try {
+            int parallelism = Integer.parseInt(value);
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("Parallelism must be positive but was " + value + ".");
+            }
+            return parallelism;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parallelism must be a number but was " + value + ".", e);
+        }
+    }
+
+    private static Charset parseEncoding(String value) {
+        try {
+            return Charset.forName(value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Encoding " + value + " is not supported.", e);
+        }
+    }
+
+    private static MappedTranslationStore openStore() {
+        String path = System.getProperty(CACHE_FILE_PROPERTY,
+                Paths.get(System.getProperty("user.home"), DEFAULT_CACHE_FILE).toString());
+        if (path.isEmpty()) {
+            return null;
+        }
+        try {
+            return new MappedTranslationStore.Builder(Paths.get(path))
+                    .expireAfterWrite(30, TimeUnit.DAYS)
+                    .open();
+        } catch (IOException e) {
+            System.err.println("Translation cache[" + path + "] is not available: " + e.getMessage());
+            return null;
+        }
     }
 
     private static Stream<String> loadResource(ClassLoader cl) {
-        return new BufferedReader(new InputStreamReader(cl.getResourceAsStream(USAGE_TXT))).lines();
+        return new BufferedReader(new InputStreamReader(cl.getResourceAsStream(USAGE_TXT), StandardCharsets.UTF_8)).lines();
     }
 }
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends a second copy of a request that has not answered within a
+ * percentile of recent latencies, and keeps whichever answers first.
+ * <p>
+ * The extra load is capped by a budget: every request earns
+ * {@code budgetRatio} of a hedge and every hedge spends one, so with the
+ * default of 0.05 at most about 5% more requests reach the API.
+ */
+public final class HedgingPolicy {
+
+    private static final int RECOMPUTE_INTERVAL = 64;
+
+    private final double percentile;
+
+    private final long minDelayNanos;
+
+    private final double budgetRatio;
+
+    private final double maxBudget;
+
+    private final long[] samples;
+
+    private int sampleCount;
+
+    private int nextSample;
+
+    private long delayNanos;
+
+    private double budget;
+
+    private long hedgeCount;
+
+    private long hedgeWinCount;
+
+    private HedgingPolicy(Builder builder) {
+        this.percentile = builder.percentile;
+        this.minDelayNanos = builder.minDelayNanos;
+        this.budgetRatio = builder.budgetRatio;
+        this.maxBudget = builder.maxBudget;
+        this.samples = new long[builder.windowSize];
+        this.delayNanos = builder.initialDelayNanos;
+    }
+
+    synchronized void recordLatency(long nanos) {
+        samples[nextSample] = nanos;
+        nextSample = (nextSample + 1) % samples.length;
+        if (sampleCount < samples.length) {
+            sampleCount++;
+        }
+        if (nextSample % RECOMPUTE_INTERVAL == 0) {
+            long[] sorted = Arrays.copyOf(samples, sampleCount);
+            Arrays.sort(sorted);
+            int index = Math.min(sampleCount - 1, (int) Math.ceil(percentile * sampleCount) - 1);
+            delayNanos = Math.max(minDelayNanos, sorted[Math.max(0, index)]);
+        }
+    }
+
+    synchronized int sampleCount() {
+        return sampleCount;
+    }
+
+    synchronized long delayNanos() {
+        return delayNanos;
+    }
+
+    synchronized void onRequest() {
+        budget = Math.min(maxBudget, budget + budgetRatio);
+    }
+
+    synchronized boolean tryAcquireHedge() {
+        if (budget < 1.0) {
+            return false;
+        }
+        budget -= 1.0;
+        hedgeCount++;
+        return true;
+    }
+
+    synchronized void onHedgeWon() {
+        hedgeWinCount++;
+    }
+
+    public synchronized long getDelay(TimeUnit unit) {
+        return unit.convert(delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public synchronized long getHedgeCount() {
+        return hedgeCount;
+    }
+
+    public synchronized long getHedgeWinCount() {
+        return hedgeWinCount;
+    }
+
+    public static class Builder {
+
+        private double percentile = 0.95;
+
+        private long minDelayNanos = TimeUnit.MILLISECONDS.toNanos(5);
+
+        private long initialDelayNanos = TimeUnit.MILLISECONDS.toNanos(500);
+
+        private double budgetRatio = 0.05;
+
+        private double maxBudget = 10;
+
+        private int windowSize = 1024;
+
+        public Builder percentile(double percentile) {
+            if (percentile <= 0 || percentile >= 1) {
+                throw new IllegalArgumentException("percentile must be in (0, 1)");
+            }
+            this.percentile = percentile;
+            return this;
+        }
+
+        public Builder minDelay(long delay, TimeUnit unit) {
+            this.minDelayNanos = unit.toNanos(delay);
+            return this;
+        }
+
+        /**
+         * Delay used until enough latencies have been observed.
+         */
+        public Builder initialDelay(long delay, TimeUnit unit) {
+            this.initialDelayNanos = unit.toNanos(delay);
+            return this;
+        }
+
+        public Builder budgetRatio(double budgetRatio) {
+            if (budgetRatio <= 0 || budgetRatio > 1) {
+                throw new IllegalArgumentException("budgetRatio must be in (0, 1]");
+            }
+            this.budgetRatio = budgetRatio;
+            return this;
+        }
+
+        /**
+         * Largest number of hedges that can be saved up and spent in a burst.
+         */
+        public Builder maxBudget(double maxBudget) {
+            this.maxBudget = maxBudget;
+            return this;
+        }
+
+        public Builder windowSize(int windowSize) {
+            if (windowSize < RECOMPUTE_INTERVAL) {
+                throw new IllegalArgumentException("windowSize < " + RECOMPUTE_INTERVAL);
+            }
+            this.windowSize = windowSize;
+            return this;
+        }
+
+        public HedgingPolicy build() {
+            return new HedgingPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic;
+
+import com.squareup.okhttp.ConnectionPool;
+import com.squareup.okhttp.Dispatcher;
+import com.squareup.okhttp.OkHttpClient;
+import com.squareup.okhttp.Protocol;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Long-lived HTTP transport shared by {@link Codic} instances.
+ * <p>
+ * Connections are kept alive in the pool, so successive calls reuse
+ * TCP/TLS sessions instead of paying a handshake per translation.
+ */
+public final class HttpTransport {
+
+    private static final class SharedHolder {
+        private static final HttpTransport SHARED = new Builder().build();
+    }
+
+    private final OkHttpClient client;
+
+    private final ConnectionPool connectionPool;
+
+    private final Dispatcher dispatcher;
+
+    private HttpTransport(Builder builder) {
+        this.connectionPool = new ConnectionPool(builder.maxIdleConnections, builder.keepAliveMillis);
+        this.dispatcher = new Dispatcher(builder.executor != null ? builder.executor : CodicExecutors.platformThreads());
+        // every call goes to the same host, so the per-host limit is the effective in-flight cap
+        dispatcher.setMaxRequests(builder.maxInFlight);
+        dispatcher.setMaxRequestsPerHost(builder.maxInFlight);
+        this.client = new OkHttpClient();
+        client.setConnectionPool(connectionPool);
+        client.setDispatcher(dispatcher);
+        client.networkInterceptors().add(CallTimings.INTERCEPTOR);
+        client.setConnectTimeout(builder.connectTimeoutMillis, TimeUnit.MILLISECONDS);
+        client.setReadTimeout(builder.readTimeoutMillis, TimeUnit.MILLISECONDS);
+        client.setProtocols(builder.http2 ?
+                Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1) :
+                Collections.singletonList(Protocol.HTTP_1_1));
+    }
+
+    public static HttpTransport shared() {
+        return SharedHolder.SHARED;
+    }
+
+    OkHttpClient client() {
+        return client;
+    }
+
+    public int getConnectionCount() {
+        return connectionPool.getConnectionCount();
+    }
+
+    public int getMultiplexedConnectionCount() {
+        return connectionPool.getMultiplexedConnectionCount();
+    }
+
+    public int getMaxInFlight() {
+        return dispatcher.getMaxRequestsPerHost();
+    }
+
+    public int getRunningCallCount() {
+        return dispatcher.getRunningCallCount();
+    }
+
+    public int getQueuedCallCount() {
+        return dispatcher.getQueuedCallCount();
+    }
+
+    public void evictAll() {
+        connectionPool.evictAll();
+    }
+
+    public static class Builder {
+
+        private int maxIdleConnections = 5;
+
+        private long keepAliveMillis = TimeUnit.MINUTES.toMillis(5);
+
+        private long connectTimeoutMillis = TimeUnit.SECONDS.toMillis(10);
+
+        private long readTimeoutMillis = TimeUnit.SECONDS.toMillis(10);
+
+        private boolean http2 = true;
+
+        private int maxInFlight = 64;
+
+        private ExecutorService executor;
+
+        public Builder maxIdleConnections(int maxIdleConnections) {
+            if (maxIdleConnections < 0) {
+                throw new IllegalArgumentException("maxIdleConnections < 0");
+            }
+            this.maxIdleConnections = maxIdleConnections;
+            return this;
+        }
+
+        public Builder keepAlive(long duration, TimeUnit unit) {
+            this.keepAliveMillis = unit.toMillis(duration);
+            return this;
+        }
+
+        public Builder connectTimeout(long timeout, TimeUnit unit) {
+            this.connectTimeoutMillis = unit.toMillis(timeout);
+            return this;
+        }
+
+        public Builder readTimeout(long timeout, TimeUnit unit) {
+            this.readTimeoutMillis = unit.toMillis(timeout);
+            return this;
+        }
+
+        public Builder http2(boolean http2) {
+            this.http2 = http2;
+            return this;
+        }
+
+        public Builder maxInFlight(int maxInFlight) {
+            if (maxInFlight < 1) {
+                throw new IllegalArgumentException("maxInFlight < 1");
+            }
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        public Builder executor(ExecutorService executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        public HttpTransport build() {
+            return new HttpTransport(this);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.cache;
+
+/**
+ * Count-min sketch of recent access frequencies used for TinyLFU admission.
+ * Counters saturate at 15 and are halved periodically so that the sketch
+ * follows changes in popularity.
+ * <p>
+ * Counters take 4 bits, sixteen to a {@code long}. A key has one counter in
+ * each of four table slots, all in the same quarter of their slot, so the
+ * sketch costs 8 bytes per cache entry rounded up to a power of two.
+ */
+final class FrequencySketch {
+
+    private static final int[] SEEDS = {0x97cb3127, 0xb492b66f, 0x9ae16a3b, 0x4cf5ad43};
+
+    private static final int MAX_COUNT = 15;
+
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private static final int MAX_TABLE_LENGTH = 1 << 26;
+
+    private final long[] table;
+
+    private final int mask;
+
+    private final int sampleSize;
+
+    private int additions;
+
+    FrequencySketch(long maximumSize) {
+        int length = (int) Math.min(Math.max(maximumSize, 16L), MAX_TABLE_LENGTH);
+        length = Integer.highestOneBit(length - 1) << 1;
+        this.table = new long[length];
+        this.mask = length - 1;
+        // ten additions per counter of a row, as each slot holds four counters of every row
+        this.sampleSize = (int) Math.min(40L * length, Integer.MAX_VALUE);
+    }
+
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        int frequency = MAX_COUNT;
+        for (int i = 0; i < SEEDS.length; i++) {
+            int count = (int) ((table[indexOf(hash, i)] >>> ((start + i) << 2)) & MAX_COUNT);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * @return the number of {@code long}s backing the counters.
+     */
+    int tableLength() {
+        return table.length;
+    }
+
+    private boolean incrementAt(int index, int counter) {
+        int offset = counter << 2;
+        long counterMask = (long) MAX_COUNT << offset;
+        if ((table[index] & counterMask) == counterMask) {
+            return false;
+        }
+        table[index] += 1L << offset;
+        return true;
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions >>>= 1;
+    }
+
+    private int indexOf(int hash, int row) {
+        int h = hash * SEEDS[row];
+        h ^= h >>> 16;
+        return h & mask;
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9e3779b9;
+        return h ^ (h >>> 15);
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.cache;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Open-addressing hash table mapping a 32-bit key hash to a 32-bit record
+ * position. Keys themselves live in the record store, so each entry costs
+ * one {@code long} on heap; callers confirm a match by comparing the stored
+ * key at the candidate position. Positions must be positive.
+ */
+final class HashIndex {
+
+    private long[] slots;
+
+    private int size;
+
+    HashIndex(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize * 2, 16) - 1) << 1;
+        this.slots = new long[capacity];
+    }
+
+    static int hash(byte[] key) {
+        int h = 1;
+        for (byte b : key) {
+            h = 31 * h + b;
+        }
+        h *= 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * @return position of the entry whose stored key satisfies {@code sameKey}, or {@code -1}.
+     */
+    int find(int hash, IntPredicate sameKey) {
+        int mask = slots.length - 1;
+        for (int i = hash & mask; slots[i] != 0; i = (i + 1) & mask) {
+            long slot = slots[i];
+            int position = position(slot);
+            if ((int) (slot >>> 32) == hash && sameKey.test(position)) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Stores {@code position} for the key, replacing an existing entry that {@code sameKey} accepts.
+     */
+    void put(int hash, int position, IntPredicate sameKey) {
+        int mask = slots.length - 1;
+        int i = hash & mask;
+        for (; slots[i] != 0; i = (i + 1) & mask) {
+            long slot = slots[i];
+            if ((int) (slot >>> 32) == hash && sameKey.test(position(slot))) {
+                slots[i] = entry(hash, position);
+                return;
+            }
+        }
+        slots[i] = entry(hash, position);
+        if (++size * 2 > slots.length) {
+            resize();
+        }
+    }
+
+    /**
+     * Removes the entry pointing at exactly {@code position}, if present.
+     */
+    boolean remove(int hash, int position) {
+        int mask = slots.length - 1;
+        for (int i = hash & mask; slots[i] != 0; i = (i + 1) & mask) {
+            if (slots[i] == entry(hash, position)) {
+                shiftBack(i);
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        Arrays.fill(slots, 0L);
+        size = 0;
+    }
+
+    private void shiftBack(int hole) {
+        int mask = slots.length - 1;
+        int i = hole;
+        while (true) {
+            i = (i + 1) & mask;
+            long slot = slots[i];
+            if (slot == 0) {
+                break;
+            }
+            int home = (int) (slot >>> 32) & mask;
+            // move the entry into the hole unless its home lies cyclically in (hole, i]
+            boolean reachable = hole <= i ? (hole < home && home <= i) : (hole < home || home <= i);
+            if (!reachable) {
+                slots[hole] = slot;
+                hole = i;
+            }
+        }
+        slots[hole] = 0;
+    }
+
+    private void resize() {
+        long[] old = slots;
+        slots = new long[old.length * 2];
+        int mask = slots.length - 1;
+        for (long slot : old) {
+            if (slot != 0) {
+                int i = (int) (slot >>> 32) & mask;
+                while (slots[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                slots[i] = slot;
+            }
+        }
+    }
+
+    private static long entry(int hash, int position) {
+        return ((long) hash << 32) | (position & 0xffffffffL);
+    }
+
+    private static int position(long slot) {
+        return (int) slot;
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.cache;
+
+import javajo.sample.codic.model.PackedTranslations;
+import javajo.sample.codic.model.Translation;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Size-bounded LRU cache with TinyLFU admission and expire-after-write.
+ * Every entry has its own time to live: the builder's default, or the one
+ * given to {@link #put(String, List, long, TimeUnit)}.
+ * <p>
+ * When the cache is full, a new entry only replaces the least recently used
+ * one if it has been requested more often recently, so a one-off scan of
+ * cold keys cannot flush the hot identifiers.
+ */
+public final class InMemoryTranslationCache implements TranslationCache {
+
+    private final long maximumSize;
+
+    private final long expireAfterWriteNanos;
+
+    private final LongSupplier ticker;
+
+    private final boolean compact;
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final FrequencySketch sketch;
+
+    private long hitCount;
+
+    private long missCount;
+
+    private long evictionCount;
+
+    private long rejectionCount;
+
+    private InMemoryTranslationCache(Builder builder) {
+        this.maximumSize = builder.maximumSize;
+        this.expireAfterWriteNanos = builder.expireAfterWriteNanos;
+        this.ticker = builder.ticker;
+        this.compact = builder.compact;
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    @Override
+    public synchronized List<Translation> get(String text) {
+        sketch.increment(text);
+        Entry entry = entries.get(text);
+        if (entry == null) {
+            missCount++;
+            return null;
+        }
+        if (isExpired(entry, ticker.getAsLong())) {
+            entries.remove(text);
+            evictionCount++;
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return entry.translations;
+    }
+
+    @Override
+    public void put(String text, List<Translation> translations) {
+        put(text, translations, expireAfterWriteNanos);
+    }
+
+    /**
+     * Caches {@code translations} for {@code duration}, instead of the builder's {@code expireAfterWrite}.
+     */
+    public void put(String text, List<Translation> translations, long duration, TimeUnit unit) {
+        if (duration <= 0) {
+            throw new IllegalArgumentException("duration <= 0");
+        }
+        put(text, translations, unit.toNanos(duration));
+    }
+
+    private synchronized void put(String text, List<Translation> translations, long expireAfterWriteNanos) {
+        long now = ticker.getAsLong();
+        Entry entry = new Entry(compact ? PackedTranslations.pack(translations) : Collections.unmodifiableList(translations),
+                now, expireAfterWriteNanos);
+        if (entries.containsKey(text) || entries.size() < maximumSize) {
+            entries.put(text, entry);
+            return;
+        }
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        Map.Entry<String, Entry> victim = eldest.next();
+        if (isExpired(victim.getValue(), now) || sketch.frequency(text) > sketch.frequency(victim.getKey())) {
+            eldest.remove();
+            evictionCount++;
+            entries.put(text, entry);
+        } else {
+            rejectionCount++;
+        }
+    }
+
+    private static boolean isExpired(Entry entry, long now) {
+        return entry.expireAfterWriteNanos > 0 && now - entry.writtenAt >= entry.expireAfterWriteNanos;
+    }
+
+    public synchronized long size() {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized CacheStats stats() {
+        return new CacheStats(hitCount, missCount, evictionCount, rejectionCount);
+    }
+
+    private static final class Entry {
+
+        private final List<Translation> translations;
+
+        private final long writtenAt;
+
+        // 0 when the entry never expires
+        private final long expireAfterWriteNanos;
+
+        private Entry(List<Translation> translations, long writtenAt, long expireAfterWriteNanos) {
+            this.translations = translations;
+            this.writtenAt = writtenAt;
+            this.expireAfterWriteNanos = expireAfterWriteNanos;
+        }
+    }
+
+    public static class Builder {
+
+        private long maximumSize = 10_000;
+
+        private long expireAfterWriteNanos;
+
+        private LongSupplier ticker = System::nanoTime;
+
+        private boolean compact = true;
+
+        public Builder maximumSize(long maximumSize) {
+            if (maximumSize < 1) {
+                throw new IllegalArgumentException("maximumSize < 1");
+            }
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        public Builder expireAfterWrite(long duration, TimeUnit unit) {
+            this.expireAfterWriteNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * Whether entries are stored as {@link PackedTranslations}. Enabled by default;
+         * each hit then returns freshly materialized {@link Translation} objects.
+         */
+        public Builder compact(boolean compact) {
+            this.compact = compact;
+            return this;
+        }
+
+        Builder ticker(LongSupplier ticker) {
+            this.ticker = ticker;
+            return this;
+        }
+
+        public InMemoryTranslationCache build() {
+            return new InMemoryTranslationCache(this);
+        }
+    }
+}
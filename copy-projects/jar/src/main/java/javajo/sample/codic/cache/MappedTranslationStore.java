@@ -0,0 +1,421 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.cache;
+
+import javajo.sample.codic.CodicException;
+import javajo.sample.codic.model.Translation;
+import javajo.sample.codic.model.TranslationCodec;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persistent translation cache backed by a memory-mapped, append-only file.
+ * <p>
+ * Only the record headers are walked when the file is opened, to rebuild a
+ * compact {@link HashIndex}; a lookup decodes the single matching record
+ * straight from the mapping. Several processes may share one file: appends
+ * are serialized with a file lock and each process picks up records written
+ * by the others.
+ * <p>
+ * A file is never truncated while others may have it mapped. When it reaches
+ * its maximum size the live records, newest first up to half that size, are
+ * written to a new file that is renamed over it; a file of another version is
+ * replaced the same way. The old file is then marked superseded, and every
+ * process moves over to the new one at its next access.
+ * <pre>
+ * header : magic(int) version(int) end(long), end is -1 once superseded
+ * record : keyLength(int) valueLength(int) writtenAt(long) key(UTF-8) value({@link TranslationCodec})
+ * </pre>
+ */
+public final class MappedTranslationStore implements TranslationCache, Closeable {
+
+    private static final int MAGIC = 0x43444943;
+
+    private static final int VERSION = 3;
+
+    private static final int HEADER_SIZE = 16;
+
+    private static final int END_OFFSET = 8;
+
+    private static final long SUPERSEDED = -1L;
+
+    private static final int RECORD_HEADER_SIZE = 16;
+
+    private static final TranslationCodec CODEC = new TranslationCodec.Builder().build();
+
+    private final Path path;
+
+    private final long initialSize;
+
+    private final long expireAfterWriteMillis;
+
+    private final long maximumFileSize;
+
+    private final HashIndex index = new HashIndex(1024);
+
+    private FileChannel channel;
+
+    private MappedByteBuffer buffer;
+
+    private int end = HEADER_SIZE;
+
+    private long hitCount;
+
+    private long missCount;
+
+    private long evictionCount;
+
+    private long rejectionCount;
+
+    private MappedTranslationStore(Builder builder) throws IOException {
+        this.path = builder.path;
+        this.initialSize = Math.max(builder.initialSize, HEADER_SIZE);
+        this.expireAfterWriteMillis = builder.expireAfterWriteMillis;
+        this.maximumFileSize = builder.maximumFileSize;
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        open();
+    }
+
+    /**
+     * Opens and maps the file currently at {@code path}, following replacements made meanwhile.
+     */
+    private void open() throws IOException {
+        while (true) {
+            FileChannel opened = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            boolean attached;
+            try {
+                FileLock lock = opened.lock();
+                try {
+                    attached = attach(opened);
+                } finally {
+                    lock.release();
+                }
+            } catch (IOException | RuntimeException e) {
+                opened.close();
+                throw e;
+            }
+            if (attached) {
+                return;
+            }
+            opened.close();
+        }
+    }
+
+    /**
+     * Maps a freshly opened and locked file; returns false if it has been or is now replaced.
+     */
+    private boolean attach(FileChannel opened) throws IOException {
+        MappedByteBuffer mapped;
+        long size = opened.size();
+        if (size < HEADER_SIZE) {
+            // a new file, which nobody else has mapped yet
+            mapped = opened.map(FileChannel.MapMode.READ_WRITE, 0, initialSize);
+            mapped.putInt(0, MAGIC);
+            mapped.putInt(4, VERSION);
+            mapped.putLong(END_OFFSET, HEADER_SIZE);
+        } else {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            opened.read(header, 0);
+            if (header.getLong(END_OFFSET) == SUPERSEDED) {
+                return false;
+            }
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                replace(opened, new int[0], 0);
+                return false;
+            }
+            mapped = map(opened, size);
+        }
+        channel = opened;
+        buffer = mapped;
+        index.clear();
+        end = HEADER_SIZE;
+        catchUp();
+        return true;
+    }
+
+    private void reopen() throws IOException {
+        FileChannel old = channel;
+        open();
+        old.close();
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Translation store is larger than 2GB.");
+        }
+        return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    /**
+     * Indexes records appended since the last look, including those written by other processes.
+     */
+    private void catchUp() throws IOException {
+        long fileEnd = buffer.getLong(END_OFFSET);
+        if (fileEnd == SUPERSEDED) {
+            reopen();
+            return;
+        }
+        if (fileEnd > buffer.capacity()) {
+            buffer = map(channel, channel.size());
+        }
+        while (end < fileEnd) {
+            int position = end;
+            byte[] key = keyAt(position);
+            index.put(HashIndex.hash(key), position, p -> keyEquals(p, key));
+            end = position + recordSize(position);
+        }
+    }
+
+    private byte[] keyAt(int position) {
+        byte[] key = new byte[buffer.getInt(position)];
+        ByteBuffer view = buffer.duplicate();
+        view.position(position + RECORD_HEADER_SIZE);
+        view.get(key);
+        return key;
+    }
+
+    private int recordSize(int position) {
+        return RECORD_HEADER_SIZE + buffer.getInt(position) + buffer.getInt(position + 4);
+    }
+
+    private boolean keyEquals(int position, byte[] key) {
+        if (buffer.getInt(position) != key.length) {
+            return false;
+        }
+        int keyStart = position + RECORD_HEADER_SIZE;
+        for (int i = 0; i < key.length; i++) {
+            if (buffer.get(keyStart + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized List<Translation> get(String text) {
+        byte[] key = text.getBytes(StandardCharsets.UTF_8);
+        int hash = HashIndex.hash(key);
+        int position = index.find(hash, p -> keyEquals(p, key));
+        if (position < 0 && buffer.getLong(END_OFFSET) != end) {
+            try {
+                catchUp();
+            } catch (IOException e) {
+                throw new CodicException("Exception in reading translation store.", e);
+            }
+            position = index.find(hash, p -> keyEquals(p, key));
+        }
+        if (position < 0 || isExpired(buffer.getLong(position + 8))) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        int valueStart = position + RECORD_HEADER_SIZE + key.length;
+        ByteBuffer value = buffer.duplicate();
+        value.limit(valueStart + buffer.getInt(position + 4)).position(valueStart);
+        try {
+            return CODEC.read(value);
+        } catch (IOException e) {
+            throw new CodicException("Exception in reading translation store.", e);
+        }
+    }
+
+    private boolean isExpired(long writtenAt) {
+        return expireAfterWriteMillis > 0 && System.currentTimeMillis() - writtenAt >= expireAfterWriteMillis;
+    }
+
+    @Override
+    public synchronized void put(String text, List<Translation> translations) {
+        byte[] key = text.getBytes(StandardCharsets.UTF_8);
+        byte[] value = CODEC.encode(translations);
+        int recordSize = RECORD_HEADER_SIZE + key.length + value.length;
+        if (HEADER_SIZE + recordSize > maximumFileSize / 2) {
+            rejectionCount++;
+            return;
+        }
+        try {
+            for (boolean compacted = false; ; compacted = true) {
+                FileLock lock = lockCurrent();
+                try {
+                    catchUp();
+                    long required = (long) end + recordSize;
+                    if (required <= maximumFileSize) {
+                        append(key, value, required);
+                        return;
+                    }
+                    if (compacted) {
+                        rejectionCount++;
+                        return;
+                    }
+                    compact(recordSize);
+                } finally {
+                    lock.release();
+                }
+            }
+        } catch (IOException e) {
+            throw new CodicException("Exception in writing translation store.", e);
+        }
+    }
+
+    /**
+     * Locks the file currently at {@code path}, moving over to it first if this one was replaced.
+     */
+    private FileLock lockCurrent() throws IOException {
+        while (true) {
+            FileLock lock = channel.lock();
+            if (buffer.getLong(END_OFFSET) != SUPERSEDED) {
+                return lock;
+            }
+            lock.release();
+            reopen();
+        }
+    }
+
+    private void append(byte[] key, byte[] value, long required) throws IOException {
+        if (required > buffer.capacity()) {
+            buffer = map(channel, Math.min(Math.max(required, 2L * buffer.capacity()), maximumFileSize));
+        }
+        int position = end;
+        ByteBuffer view = buffer.duplicate();
+        view.position(position);
+        view.putInt(key.length).putInt(value.length).putLong(System.currentTimeMillis()).put(key).put(value);
+        end = (int) required;
+        buffer.putLong(END_OFFSET, end);
+        index.put(HashIndex.hash(key), position, p -> keyEquals(p, key));
+    }
+
+    /**
+     * Replaces the file by one holding only its live records, newest first, within half the
+     * maximum size; called with the file locked.
+     */
+    private void compact(int incoming) throws IOException {
+        int[] live = new int[index.size()];
+        int count = 0;
+        for (int position = HEADER_SIZE; position < end; position += recordSize(position)) {
+            byte[] key = keyAt(position);
+            if (!isExpired(buffer.getLong(position + 8))
+                    && index.find(HashIndex.hash(key), p -> keyEquals(p, key)) == position) {
+                live[count++] = position;
+            }
+        }
+        long budget = maximumFileSize / 2 - HEADER_SIZE - incoming;
+        int first = count;
+        for (long kept = 0; first > 0 && kept + recordSize(live[first - 1]) <= budget; first--) {
+            kept += recordSize(live[first - 1]);
+        }
+        evictionCount += first;
+        replace(channel, Arrays.copyOfRange(live, first, count), count - first);
+    }
+
+    /**
+     * Writes the given records of the current mapping to a new file, renames it over
+     * {@code path} and marks {@code old} superseded.
+     */
+    private void replace(FileChannel old, int[] records, int count) throws IOException {
+        long size = HEADER_SIZE;
+        for (int i = 0; i < count; i++) {
+            size += recordSize(records[i]);
+        }
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel target = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer mapped = map(target, Math.max(size, initialSize));
+            mapped.putInt(MAGIC).putInt(VERSION).putLong(size);
+            for (int i = 0; i < count; i++) {
+                ByteBuffer record = buffer.duplicate();
+                record.limit(records[i] + recordSize(records[i])).position(records[i]);
+                mapped.put(record);
+            }
+            mapped.force();
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        ByteBuffer superseded = ByteBuffer.allocate(Long.BYTES);
+        superseded.putLong(0, SUPERSEDED);
+        old.write(superseded, END_OFFSET);
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    @Override
+    public synchronized CacheStats stats() {
+        return new CacheStats(hitCount, missCount, evictionCount, rejectionCount);
+    }
+
+    public synchronized void force() {
+        buffer.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    public static class Builder {
+
+        private final Path path;
+
+        private long initialSize = 1L << 20;
+
+        private long maximumFileSize = Integer.MAX_VALUE;
+
+        private long expireAfterWriteMillis;
+
+        public Builder(Path path) {
+            this.path = path;
+        }
+
+        public Builder initialSize(long initialSize) {
+            this.initialSize = initialSize;
+            return this;
+        }
+
+        public Builder maximumFileSize(long maximumFileSize) {
+            if (maximumFileSize > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("maximumFileSize > 2GB");
+            }
+            this.maximumFileSize = maximumFileSize;
+            return this;
+        }
+
+        public Builder expireAfterWrite(long duration, TimeUnit unit) {
+            this.expireAfterWriteMillis = unit.toMillis(duration);
+            return this;
+        }
+
+        public MappedTranslationStore open() throws IOException {
+            return new MappedTranslationStore(this);
+        }
+    }
+}
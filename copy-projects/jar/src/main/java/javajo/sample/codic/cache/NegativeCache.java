@@ -0,0 +1,285 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.cache;
+
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Bloom filter of texts the API could not translate, cleared periodically.
+ * <p>
+ * A positive answer may be wrong, so one in {@code verifyEvery} positives is
+ * still sent to the API and the outcome reported through {@link #recordVerification(boolean)};
+ * that sample gives the measured false-positive rate next to the theoretical one.
+ */
+public final class NegativeCache {
+
+    private final int bitCount;
+
+    private final int hashCount;
+
+    private final long resetAfterNanos;
+
+    private final int verifyEvery;
+
+    private final LongSupplier ticker;
+
+    private volatile Generation generation;
+
+    private final AtomicLong positives = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder verifications = new LongAdder();
+
+    private final LongAdder falsePositives = new LongAdder();
+
+    private final LongAdder resets = new LongAdder();
+
+    private NegativeCache(Builder builder) {
+        double bits = -builder.expectedInsertions * Math.log(builder.falsePositiveRate) / (Math.log(2) * Math.log(2));
+        this.bitCount = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64L, (long) Math.ceil(bits)));
+        this.hashCount = Math.max(1, (int) Math.round(bitCount / (double) builder.expectedInsertions * Math.log(2)));
+        this.resetAfterNanos = builder.resetAfterNanos;
+        this.verifyEvery = builder.verifyEvery;
+        this.ticker = builder.ticker;
+        this.generation = new Generation(bitCount, ticker.getAsLong());
+    }
+
+    private static final class Generation {
+
+        private final AtomicLongArray words;
+
+        private final long startedAt;
+
+        private final LongAdder insertions = new LongAdder();
+
+        private Generation(int bitCount, long startedAt) {
+            this.words = new AtomicLongArray((bitCount + 63) >>> 6);
+            this.startedAt = startedAt;
+        }
+    }
+
+    private Generation current() {
+        Generation g = generation;
+        long now = ticker.getAsLong();
+        if (resetAfterNanos > 0 && now - g.startedAt >= resetAfterNanos) {
+            synchronized (this) {
+                g = generation;
+                if (now - g.startedAt >= resetAfterNanos) {
+                    g = new Generation(bitCount, now);
+                    generation = g;
+                    resets.increment();
+                }
+            }
+        }
+        return g;
+    }
+
+    public void put(String text) {
+        Generation g = current();
+        long hash = hash(text);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = index(h1 + i * h2);
+            long mask = 1L << bit;
+            int word = bit >>> 6;
+            long value;
+            do {
+                value = g.words.get(word);
+            } while ((value & mask) == 0 && !g.words.compareAndSet(word, value, value | mask));
+        }
+        g.insertions.increment();
+    }
+
+    public boolean mightContain(String text) {
+        Generation g = current();
+        long hash = hash(text);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = index(h1 + i * h2);
+            if ((g.words.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Counts a positive answer and tells whether it should be checked against the API anyway.
+     */
+    public boolean shouldVerify() {
+        boolean verify = positives.incrementAndGet() % verifyEvery == 0;
+        if (!verify) {
+            hits.increment();
+        }
+        return verify;
+    }
+
+    /**
+     * @param untranslatable whether the API confirmed a sampled positive
+     */
+    public void recordVerification(boolean untranslatable) {
+        verifications.increment();
+        if (!untranslatable) {
+            falsePositives.increment();
+        }
+    }
+
+    private int index(int hash) {
+        return (hash & Integer.MAX_VALUE) % bitCount;
+    }
+
+    // FNV-1a over the chars, finished with the murmur3 mix so both halves are usable
+    private static long hash(String text) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            h ^= text.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * @return texts answered without a network call
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getVerificationCount() {
+        return verifications.sum();
+    }
+
+    public long getFalsePositiveCount() {
+        return falsePositives.sum();
+    }
+
+    public long getResetCount() {
+        return resets.sum();
+    }
+
+    /**
+     * @return share of sampled positives that the API did translate, or 0 before any sample
+     */
+    public double measuredFalsePositiveRate() {
+        long sampled = verifications.sum();
+        return sampled == 0 ? 0.0 : (double) falsePositives.sum() / sampled;
+    }
+
+    /**
+     * @return false-positive probability implied by the current fill of the filter
+     */
+    public double expectedFalsePositiveRate() {
+        AtomicLongArray words = generation.words;
+        long set = 0;
+        for (int i = 0; i < words.length(); i++) {
+            set += Long.bitCount(words.get(i));
+        }
+        return Math.pow((double) set / bitCount, hashCount);
+    }
+
+    /**
+     * @return texts added since the last reset
+     */
+    public long size() {
+        return generation.insertions.sum();
+    }
+
+    public long sizeInBytes() {
+        return ((bitCount + 63L) >>> 6) * Long.BYTES;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", "NegativeCache:[", "]")
+                .add("size: [" + size() + "]")
+                .add("bytes: [" + sizeInBytes() + "]")
+                .add("hits: [" + getHitCount() + "]")
+                .add("measuredFalsePositiveRate: [" + measuredFalsePositiveRate() + "]")
+                .add("expectedFalsePositiveRate: [" + expectedFalsePositiveRate() + "]")
+                .toString();
+    }
+
+    public static class Builder {
+
+        private long expectedInsertions = 100_000;
+
+        private double falsePositiveRate = 0.01;
+
+        private long resetAfterNanos = TimeUnit.HOURS.toNanos(1);
+
+        private int verifyEvery = 64;
+
+        private LongSupplier ticker = System::nanoTime;
+
+        public Builder expectedInsertions(long expectedInsertions) {
+            if (expectedInsertions < 1) {
+                throw new IllegalArgumentException("expectedInsertions < 1");
+            }
+            this.expectedInsertions = expectedInsertions;
+            return this;
+        }
+
+        public Builder falsePositiveRate(double falsePositiveRate) {
+            if (falsePositiveRate <= 0.0 || falsePositiveRate >= 1.0) {
+                throw new IllegalArgumentException("falsePositiveRate must be in (0, 1)");
+            }
+            this.falsePositiveRate = falsePositiveRate;
+            return this;
+        }
+
+        /**
+         * Clears the filter after this duration, so texts the API learns to translate are retried.
+         * Zero keeps entries forever.
+         */
+        public Builder resetAfter(long duration, TimeUnit unit) {
+            this.resetAfterNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * Sends one in {@code verifyEvery} positive answers to the API anyway to measure false positives.
+         */
+        public Builder verifyEvery(int verifyEvery) {
+            if (verifyEvery < 1) {
+                throw new IllegalArgumentException("verifyEvery < 1");
+            }
+            this.verifyEvery = verifyEvery;
+            return this;
+        }
+
+        Builder ticker(LongSupplier ticker) {
+            this.ticker = ticker;
+            return this;
+        }
+
+        public NegativeCache build() {
+            return new NegativeCache(this);
+        }
+    }
+}
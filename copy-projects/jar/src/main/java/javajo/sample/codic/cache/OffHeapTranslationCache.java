@@ -0,0 +1,295 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.cache;
+
+import javajo.sample.codic.CodicException;
+import javajo.sample.codic.model.Translation;
+import javajo.sample.codic.model.TranslationCodec;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Translation cache keeping serialized results in direct {@link ByteBuffer} slabs.
+ * <p>
+ * Slabs form a ring written like a log: records are appended to the current
+ * slab, and when the ring is full the oldest slab is emptied in one go,
+ * dropping its entries from the index. The only on-heap structure is a
+ * {@link HashIndex} of one {@code long} per entry, so a cache of tens of
+ * millions of results adds next to nothing to the GC's work. Results are
+ * decoded only when they are read, from a copy taken under the lock.
+ * <p>
+ * Eviction is first-in first-out by slab: a hit does not move its entry, so
+ * a frequently read result is dropped with its slab like any other and comes
+ * back on the next put. Put this tier behind an on-heap cache that keeps hot
+ * entries, with a {@link TieredTranslationCache}.
+ * <pre>
+ * record : keyLength(int) valueLength(int) writtenAt(long) key(UTF-8) value({@link TranslationCodec}), padded to 8 bytes
+ * </pre>
+ */
+public final class OffHeapTranslationCache implements TranslationCache, Closeable {
+
+    private static final int RECORD_HEADER_SIZE = 16;
+
+    private static final int ALIGNMENT_SHIFT = 3;
+
+    private static final long MAX_CAPACITY = (long) Integer.MAX_VALUE << ALIGNMENT_SHIFT;
+
+    private static final TranslationCodec CODEC = new TranslationCodec.Builder().build();
+
+    private final int slabSize;
+
+    private final ByteBuffer[] slabs;
+
+    // used bytes of each slab
+    private final int[] slabEnds;
+
+    private final long expireAfterWriteNanos;
+
+    private final LongSupplier ticker;
+
+    private final HashIndex index = new HashIndex(1024);
+
+    private int head;
+
+    private long hitCount;
+
+    private long missCount;
+
+    private long evictionCount;
+
+    private long rejectionCount;
+
+    private OffHeapTranslationCache(Builder builder) {
+        this.slabSize = builder.slabSize;
+        int slabCount = (int) Math.max(1L, builder.capacity / builder.slabSize);
+        this.slabs = new ByteBuffer[slabCount];
+        this.slabEnds = new int[slabCount];
+        this.expireAfterWriteNanos = builder.expireAfterWriteNanos;
+        this.ticker = builder.ticker;
+    }
+
+    @Override
+    public List<Translation> get(String text) {
+        byte[] key = text.getBytes(StandardCharsets.UTF_8);
+        byte[] value;
+        synchronized (this) {
+            int position = index.find(HashIndex.hash(key), p -> keyEquals(p, key));
+            if (position < 0) {
+                missCount++;
+                return null;
+            }
+            ByteBuffer slab = slabOf(position);
+            int offset = offsetOf(position);
+            if (isExpired(slab.getLong(offset + 8))) {
+                index.remove(HashIndex.hash(key), position);
+                missCount++;
+                return null;
+            }
+            hitCount++;
+            value = new byte[slab.getInt(offset + 4)];
+            ByteBuffer view = slab.duplicate();
+            view.position(offset + RECORD_HEADER_SIZE + key.length);
+            view.get(value);
+        }
+        try {
+            return CODEC.read(ByteBuffer.wrap(value));
+        } catch (IOException e) {
+            throw new CodicException("Exception in reading off-heap translation cache.", e);
+        }
+    }
+
+    @Override
+    public synchronized void put(String text, List<Translation> translations) {
+        byte[] key = text.getBytes(StandardCharsets.UTF_8);
+        byte[] value = CODEC.encode(translations);
+        int recordSize = align(RECORD_HEADER_SIZE + key.length + value.length);
+        if (recordSize > slabSize) {
+            rejectionCount++;
+            return;
+        }
+        if (slabs[head] == null) {
+            slabs[head] = ByteBuffer.allocateDirect(slabSize);
+        }
+        if (slabEnds[head] + recordSize > slabSize) {
+            head = (head + 1) % slabs.length;
+            evict(head);
+        }
+        ByteBuffer slab = slabs[head];
+        int offset = slabEnds[head];
+        ByteBuffer view = slab.duplicate();
+        view.position(offset);
+        view.putInt(key.length).putInt(value.length).putLong(ticker.getAsLong()).put(key).put(value);
+        slabEnds[head] = offset + recordSize;
+        int position = positionOf(head, offset);
+        index.put(HashIndex.hash(key), position, p -> keyEquals(p, key));
+    }
+
+    /**
+     * Empties a slab for reuse, dropping index entries that still point into it.
+     */
+    private void evict(int slabIndex) {
+        ByteBuffer slab = slabs[slabIndex];
+        if (slab == null) {
+            slabs[slabIndex] = ByteBuffer.allocateDirect(slabSize);
+            return;
+        }
+        int end = slabEnds[slabIndex];
+        for (int offset = 0; offset < end; ) {
+            int keyLength = slab.getInt(offset);
+            byte[] key = new byte[keyLength];
+            ByteBuffer view = slab.duplicate();
+            view.position(offset + RECORD_HEADER_SIZE);
+            view.get(key);
+            if (index.remove(HashIndex.hash(key), positionOf(slabIndex, offset))) {
+                evictionCount++;
+            }
+            offset += align(RECORD_HEADER_SIZE + keyLength + slab.getInt(offset + 4));
+        }
+        slabEnds[slabIndex] = 0;
+    }
+
+    private boolean keyEquals(int position, byte[] key) {
+        ByteBuffer slab = slabOf(position);
+        int offset = offsetOf(position);
+        if (slab.getInt(offset) != key.length) {
+            return false;
+        }
+        int keyStart = offset + RECORD_HEADER_SIZE;
+        for (int i = 0; i < key.length; i++) {
+            if (slab.get(keyStart + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isExpired(long writtenAt) {
+        return expireAfterWriteNanos > 0 && ticker.getAsLong() - writtenAt >= expireAfterWriteNanos;
+    }
+
+    // positions count 8-byte units from the start of the ring, plus one since the index needs them positive
+    private int positionOf(int slabIndex, int offset) {
+        return (int) ((((long) slabIndex * slabSize + offset) >>> ALIGNMENT_SHIFT) + 1);
+    }
+
+    private ByteBuffer slabOf(int position) {
+        return slabs[(int) (((position - 1L) << ALIGNMENT_SHIFT) / slabSize)];
+    }
+
+    private int offsetOf(int position) {
+        return (int) (((position - 1L) << ALIGNMENT_SHIFT) % slabSize);
+    }
+
+    private static int align(int size) {
+        int mask = (1 << ALIGNMENT_SHIFT) - 1;
+        return (size + mask) & ~mask;
+    }
+
+    /**
+     * Drops every entry and the slabs holding them. The direct memory is returned
+     * once the buffers are collected; slabs are allocated again as entries are put.
+     */
+    public synchronized void clear() {
+        index.clear();
+        Arrays.fill(slabs, null);
+        Arrays.fill(slabEnds, 0);
+        head = 0;
+    }
+
+    /**
+     * Same as {@link #clear()}.
+     */
+    @Override
+    public void close() {
+        clear();
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * @return bytes of direct memory allocated so far
+     */
+    public synchronized long offHeapSize() {
+        long allocated = 0;
+        for (ByteBuffer slab : slabs) {
+            if (slab != null) {
+                allocated += slab.capacity();
+            }
+        }
+        return allocated;
+    }
+
+    @Override
+    public synchronized CacheStats stats() {
+        return new CacheStats(hitCount, missCount, evictionCount, rejectionCount);
+    }
+
+    public static class Builder {
+
+        private int slabSize = 64 << 20;
+
+        private long capacity = 1L << 30;
+
+        private long expireAfterWriteNanos;
+
+        private LongSupplier ticker = System::nanoTime;
+
+        /**
+         * Size of each direct buffer; also the largest record that can be cached. Defaults to 64MB.
+         */
+        public Builder slabSize(int slabSize) {
+            if (slabSize < 1024 || slabSize % 8 != 0) {
+                throw new IllegalArgumentException("slabSize must be a multiple of 8 and at least 1024");
+            }
+            this.slabSize = slabSize;
+            return this;
+        }
+
+        /**
+         * Total direct memory the cache may use, rounded down to whole slabs. Defaults to 1GB.
+         */
+        public Builder capacity(long capacity) {
+            if (capacity < 1 || capacity > MAX_CAPACITY) {
+                throw new IllegalArgumentException("capacity must be in [1, 16GB)");
+            }
+            this.capacity = capacity;
+            return this;
+        }
+
+        public Builder expireAfterWrite(long duration, TimeUnit unit) {
+            this.expireAfterWriteNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        Builder ticker(LongSupplier ticker) {
+            this.ticker = ticker;
+            return this;
+        }
+
+        public OffHeapTranslationCache build() {
+            return new OffHeapTranslationCache(this);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.cache;
+
+import javajo.sample.codic.model.Translation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Two caches in front of each other, typically an {@link InMemoryTranslationCache}
+ * keeping hot entries before an {@link OffHeapTranslationCache} or a
+ * {@link MappedTranslationStore} holding everything.
+ * <p>
+ * Reads try the first tier, then the second; a hit in the second tier is
+ * promoted into the first. Writes go to both tiers, so an entry the first tier
+ * evicts or refuses is still found in the second.
+ * <p>
+ * {@link #stats()} counts hits in either tier, misses of both, and evictions
+ * and rejections of the second tier, which is where entries leave the cache.
+ * Each tier keeps its own stats too.
+ */
+public final class TieredTranslationCache implements TranslationCache, Closeable {
+
+    private final TranslationCache first;
+
+    private final TranslationCache second;
+
+    public TieredTranslationCache(TranslationCache first, TranslationCache second) {
+        if (first == null || second == null) {
+            throw new IllegalArgumentException("Both tiers are required.");
+        }
+        this.first = first;
+        this.second = second;
+    }
+
+    @Override
+    public List<Translation> get(String text) {
+        List<Translation> translations = first.get(text);
+        if (translations != null) {
+            return translations;
+        }
+        translations = second.get(text);
+        if (translations != null) {
+            first.put(text, translations);
+        }
+        return translations;
+    }
+
+    @Override
+    public void put(String text, List<Translation> translations) {
+        second.put(text, translations);
+        first.put(text, translations);
+    }
+
+    @Override
+    public CacheStats stats() {
+        CacheStats firstStats = first.stats();
+        CacheStats secondStats = second.stats();
+        return new CacheStats(firstStats.getHitCount() + secondStats.getHitCount(), secondStats.getMissCount(),
+                secondStats.getEvictionCount(), secondStats.getRejectionCount());
+    }
+
+    /**
+     * Closes the tiers that are {@link Closeable}.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (first instanceof Closeable) {
+                ((Closeable) first).close();
+            }
+        } finally {
+            if (second instanceof Closeable) {
+                ((Closeable) second).close();
+            }
+        }
+    }
+}
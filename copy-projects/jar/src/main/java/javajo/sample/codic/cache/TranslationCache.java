@@ -0,0 +1,32 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.cache;
+
+import javajo.sample.codic.model.Translation;
+
+import java.util.List;
+
+public interface TranslationCache {
+
+    /**
+     * @return cached translations for {@code text}, or {@code null} when absent or expired.
+     */
+    List<Translation> get(String text);
+
+    void put(String text, List<Translation> translations);
+
+    CacheStats stats();
+}
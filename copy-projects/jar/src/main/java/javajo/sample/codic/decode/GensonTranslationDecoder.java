@@ -0,0 +1,43 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.decode;
+
+import com.owlike.genson.GenericType;
+import com.owlike.genson.Genson;
+import com.owlike.genson.GensonBuilder;
+import javajo.sample.codic.model.Translation;
+
+import java.io.InputStream;
+import java.util.List;
+
+public class GensonTranslationDecoder implements TranslationDecoder {
+
+    public static final String NAME = "genson";
+
+    private static final GenericType<List<Translation>> TRANSLATIONS = new GenericType<List<Translation>>() {};
+
+    private final Genson genson = new GensonBuilder().useMethods(true).create();
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public List<Translation> decode(InputStream in) {
+        return genson.deserialize(in, TRANSLATIONS);
+    }
+}
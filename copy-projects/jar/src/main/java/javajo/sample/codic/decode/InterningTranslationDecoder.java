@@ -0,0 +1,94 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.decode;
+
+import javajo.sample.codic.model.Candidates;
+import javajo.sample.codic.model.Translation;
+import javajo.sample.codic.model.Word;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Passes every text of the decoded translations through a {@link StringPool},
+ * so results kept around share one instance per distinct word or candidate.
+ * <p>
+ * A {@link Utf8TranslationDecoder} is replaced by one reading into the pool,
+ * so its parser interns straight from its character buffer and duplicates are
+ * never allocated. Other decoders allocate every string first; their texts are
+ * interned after decoding, which saves retained memory but not allocation.
+ */
+public class InterningTranslationDecoder implements TranslationDecoder {
+
+    private final TranslationDecoder delegate;
+
+    private final StringPool pool;
+
+    private final boolean internsWhileParsing;
+
+    public InterningTranslationDecoder(TranslationDecoder delegate, StringPool pool) {
+        this.internsWhileParsing = delegate instanceof Utf8TranslationDecoder;
+        this.delegate = internsWhileParsing ? new Utf8TranslationDecoder(pool) : delegate;
+        this.pool = pool;
+    }
+
+    public StringPool getPool() {
+        return pool;
+    }
+
+    @Override
+    public String name() {
+        return delegate.name();
+    }
+
+    @Override
+    public List<Translation> decode(InputStream in) throws IOException {
+        List<Translation> translations = delegate.decode(in);
+        if (!internsWhileParsing && translations != null) {
+            for (Translation translation : translations) {
+                intern(translation);
+            }
+        }
+        return translations;
+    }
+
+    private void intern(Translation translation) {
+        if (translation == null) {
+            return;
+        }
+        translation.setText(pool.intern(translation.getText()));
+        translation.setTranslatedText(pool.intern(translation.getTranslatedText()));
+        if (translation.getWords() == null) {
+            return;
+        }
+        for (Word word : translation.getWords()) {
+            if (word == null) {
+                continue;
+            }
+            word.setText(pool.intern(word.getText()));
+            word.setTranslatedText(pool.intern(word.getTranslatedText()));
+            if (word.getCandidates() == null) {
+                continue;
+            }
+            for (Candidates candidate : word.getCandidates()) {
+                if (candidate != null) {
+                    candidate.setText(pool.intern(candidate.getText()));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.decode;
+
+import javajo.sample.codic.model.Translation;
+import javajo.sample.codic.model.TranslationJppAdapter;
+import net.vvakame.util.jsonpullparser.JsonFormatException;
+import net.vvakame.util.jsonpullparser.JsonPullParser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Decoder backed by the adapters that the JsonPullParser annotation processor
+ * generates at compile time, so no reflection is involved at runtime.
+ */
+public class JsonPullParserTranslationDecoder implements TranslationDecoder {
+
+    public static final String NAME = "jsonpullparser";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public List<Translation> decode(InputStream in) throws IOException {
+        JsonPullParser parser = JsonPullParser.newParser(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+        try {
+            return TranslationJppAdapter.getList(parser);
+        } catch (JsonFormatException e) {
+            throw new IOException("Malformed translate.json response.", e);
+        }
+    }
+}
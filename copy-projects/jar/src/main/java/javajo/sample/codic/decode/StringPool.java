@@ -0,0 +1,112 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.decode;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, lock-free pool that makes equal texts share one {@code String} instance.
+ * <p>
+ * The pool is a direct-mapped table: a text colliding with a different one
+ * simply replaces it, so the pool never grows beyond its size and never blocks.
+ * Decoders that build texts from a buffer can use {@link #intern(char[], int, int)}
+ * to skip allocating a {@code String} at all when the text is already pooled.
+ */
+public final class StringPool {
+
+    private final AtomicReferenceArray<String> table;
+
+    private final int mask;
+
+    private final LongAdder requests = new LongAdder();
+
+    private final LongAdder dedups = new LongAdder();
+
+    private final LongAdder dedupedChars = new LongAdder();
+
+    /**
+     * @param maximumSize upper bound of pooled strings, rounded up to a power of two
+     */
+    public StringPool(int maximumSize) {
+        if (maximumSize < 1 || maximumSize > 1 << 30) {
+            throw new IllegalArgumentException("maximumSize must be in [1, 2^30]");
+        }
+        int size = Integer.highestOneBit(maximumSize - 1) << 1;
+        this.table = new AtomicReferenceArray<>(Math.max(1, size));
+        this.mask = table.length() - 1;
+    }
+
+    public String intern(String text) {
+        if (text == null) {
+            return null;
+        }
+        requests.increment();
+        int index = index(text.hashCode());
+        String pooled = table.get(index);
+        if (text.equals(pooled)) {
+            if (pooled != text) {
+                dedups.increment();
+                dedupedChars.add(text.length());
+            }
+            return pooled;
+        }
+        table.lazySet(index, text);
+        return text;
+    }
+
+    public String intern(char[] chars, int offset, int length) {
+        requests.increment();
+        int hash = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        int index = index(hash);
+        String pooled = table.get(index);
+        if (pooled != null && matches(pooled, chars, offset, length)) {
+            dedups.increment();
+            dedupedChars.add(length);
+            return pooled;
+        }
+        String text = new String(chars, offset, length);
+        table.lazySet(index, text);
+        return text;
+    }
+
+    private static boolean matches(String pooled, char[] chars, int offset, int length) {
+        if (pooled.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (pooled.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int index(int hash) {
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    public int capacity() {
+        return table.length();
+    }
+
+    public StringPoolStats stats() {
+        return new StringPoolStats(requests.sum(), dedups.sum(), dedupedChars.sum());
+    }
+}
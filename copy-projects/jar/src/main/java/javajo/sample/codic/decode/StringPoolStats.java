@@ -0,0 +1,64 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.decode;
+
+import java.util.StringJoiner;
+
+public final class StringPoolStats {
+
+    private final long requestCount;
+
+    private final long dedupCount;
+
+    private final long dedupedChars;
+
+    public StringPoolStats(long requestCount, long dedupCount, long dedupedChars) {
+        this.requestCount = requestCount;
+        this.dedupCount = dedupCount;
+        this.dedupedChars = dedupedChars;
+    }
+
+    public long getRequestCount() {
+        return requestCount;
+    }
+
+    /**
+     * @return number of texts replaced by, or never allocated thanks to, an already pooled instance.
+     */
+    public long getDedupCount() {
+        return dedupCount;
+    }
+
+    /**
+     * @return total length of the deduplicated texts, a lower bound of the characters no longer retained.
+     */
+    public long getDedupedChars() {
+        return dedupedChars;
+    }
+
+    public double getDedupRate() {
+        return requestCount == 0 ? 0.0 : (double) dedupCount / requestCount;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", "StringPoolStats:[", "]")
+                .add("requestCount: [" + requestCount + "]")
+                .add("dedupCount: [" + dedupCount + "]")
+                .add("dedupedChars: [" + dedupedChars + "]")
+                .toString();
+    }
+}
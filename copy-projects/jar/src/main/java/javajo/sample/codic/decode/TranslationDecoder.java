@@ -0,0 +1,36 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.decode;
+
+import javajo.sample.codic.model.Translation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Decodes a translate.json response body.
+ * <p>
+ * Implementations must be thread-safe; one instance is shared by every call
+ * of a {@link javajo.sample.codic.Codic}. Additional implementations can be
+ * registered through {@link java.util.ServiceLoader}.
+ */
+public interface TranslationDecoder {
+
+    String name();
+
+    List<Translation> decode(InputStream in) throws IOException;
+}
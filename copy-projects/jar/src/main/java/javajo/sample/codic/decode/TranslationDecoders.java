@@ -0,0 +1,51 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.decode;
+
+import java.util.ServiceLoader;
+
+public final class TranslationDecoders {
+
+    public static final String DECODER_PROPERTY = "codic.decoder";
+
+    private TranslationDecoders() {}
+
+    /**
+     * @return the decoder named by the system property {@code codic.decoder},
+     * or the Genson decoder when it is not set.
+     */
+    public static TranslationDecoder defaultDecoder() {
+        return named(System.getProperty(DECODER_PROPERTY, GensonTranslationDecoder.NAME));
+    }
+
+    public static TranslationDecoder named(String name) {
+        switch (name) {
+            case GensonTranslationDecoder.NAME:
+                return new GensonTranslationDecoder();
+            case JsonPullParserTranslationDecoder.NAME:
+                return new JsonPullParserTranslationDecoder();
+            case Utf8TranslationDecoder.NAME:
+                return new Utf8TranslationDecoder();
+            default:
+                for (TranslationDecoder decoder : ServiceLoader.load(TranslationDecoder.class)) {
+                    if (decoder.name().equals(name)) {
+                        return decoder;
+                    }
+                }
+                throw new IllegalArgumentException("Unknown translation decoder[" + name + "].");
+        }
+    }
+}
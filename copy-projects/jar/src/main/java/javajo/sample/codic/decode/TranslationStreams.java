@@ -0,0 +1,263 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.decode;
+
+import javajo.sample.codic.model.Translation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazily decodes a JSON array of translations, one element at a time.
+ * <p>
+ * Only the bytes of the element being decoded are held, so memory stays
+ * bounded by the largest element however long the array is. The array may
+ * hold translation objects or whole translate.json responses, whose
+ * translations are streamed in order. Closing the stream closes the input;
+ * parse and read failures surface as {@link UncheckedIOException}.
+ * <p>
+ * Elements are framed here and decoded by {@link Utf8TranslationParser}.
+ * {@code TranslationJppAdapter.get(JsonPullParser)} could read them one by one
+ * as well, but the byte-level parser decodes UTF-8 without a {@code Reader}
+ * and shares the {@link StringPool}.
+ */
+public final class TranslationStreams {
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+
+    private TranslationStreams() {}
+
+    public static Stream<Translation> stream(Path path) throws IOException {
+        return stream(Files.newInputStream(path));
+    }
+
+    public static Stream<Translation> stream(InputStream in) {
+        return stream(in, null);
+    }
+
+    /**
+     * @param pool pool for texts, or {@code null} to allocate every text
+     */
+    public static Stream<Translation> stream(InputStream in, StringPool pool) {
+        return stream(in, pool, DEFAULT_BUFFER_SIZE);
+    }
+
+    static Stream<Translation> stream(InputStream in, StringPool pool, int bufferSize) {
+        return StreamSupport.stream(new ArraySpliterator(in, pool, bufferSize), false)
+                .onClose(() -> {
+                    try {
+                        in.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    private static final class ArraySpliterator extends Spliterators.AbstractSpliterator<Translation> {
+
+        private final InputStream in;
+
+        private final StringPool pool;
+
+        private byte[] buffer;
+
+        // bytes before start are consumed, data runs up to end
+        private int start;
+
+        private int pos;
+
+        private int end;
+
+        // stream offset of buffer[0], for error messages
+        private long discarded;
+
+        // 0 before the array, 1 inside it, 2 inside a response nested in it, -1 after it
+        private int depth;
+
+        private final boolean[] hasElements = new boolean[3];
+
+        private ArraySpliterator(InputStream in, StringPool pool, int bufferSize) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED);
+            this.in = in;
+            this.pool = pool;
+            this.buffer = new byte[bufferSize];
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Translation> action) {
+            try {
+                while (depth >= 0) {
+                    if (advance()) {
+                        action.accept(element());
+                        return true;
+                    }
+                }
+                return false;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Moves through array punctuation; returns true when positioned on the next element.
+         */
+        private boolean advance() throws IOException {
+            int b = peek();
+            if (depth == 0) {
+                expect(b, '[');
+                depth = 1;
+                hasElements[1] = false;
+                return false;
+            }
+            if (b < 0) {
+                throw malformed("unexpected end of input");
+            }
+            if (b == ']') {
+                pos++;
+                depth--;
+                if (depth == 0) {
+                    depth = -1;
+                    if (peek() >= 0) {
+                        throw malformed("trailing data");
+                    }
+                }
+                return false;
+            }
+            if (hasElements[depth]) {
+                expect(b, ',');
+                b = peek();
+            }
+            hasElements[depth] = true;
+            if (b == '[' && depth == 1) {
+                pos++;
+                depth = 2;
+                hasElements[2] = false;
+                return false;
+            }
+            return true;
+        }
+
+        private Translation element() throws IOException {
+            start = pos;
+            int b = byteAt(pos);
+            if (b == 'n') {
+                for (int i = 1; i < NULL.length; i++) {
+                    if (byteAt(pos + i) != NULL[i]) {
+                        throw malformed("null expected");
+                    }
+                }
+                pos += NULL.length;
+            } else if (b == '{') {
+                skipObject();
+            } else {
+                throw malformed("translation expected");
+            }
+            ByteBuffer element = ByteBuffer.wrap(buffer, start, pos - start);
+            start = pos;
+            return Utf8TranslationParser.parseElement(element, pool);
+        }
+
+        private void skipObject() throws IOException {
+            int depth = 0;
+            do {
+                int b = byteAt(pos++);
+                if (b == '"') {
+                    while ((b = byteAt(pos++)) != '"') {
+                        if (b == '\\') {
+                            pos++;
+                        }
+                    }
+                } else if (b == '{' || b == '[') {
+                    depth++;
+                } else if (b == '}' || b == ']') {
+                    depth--;
+                }
+            } while (depth > 0);
+        }
+
+        private void expect(int b, char c) throws IOException {
+            if (b != c) {
+                throw malformed("'" + c + "' expected");
+            }
+            pos++;
+        }
+
+        /**
+         * @return the next non-whitespace byte, left unconsumed, or -1 at the end of input
+         */
+        private int peek() throws IOException {
+            while (true) {
+                if (pos >= end && !fill()) {
+                    return -1;
+                }
+                if (!Utf8TranslationParser.isWhitespace(buffer[pos])) {
+                    start = pos;
+                    return buffer[pos] & 0xFF;
+                }
+                pos++;
+            }
+        }
+
+        private int byteAt(int index) throws IOException {
+            while (index >= end) {
+                int shift = start;
+                if (!fill()) {
+                    throw malformed("unexpected end of input");
+                }
+                index -= shift - start;
+            }
+            return buffer[index] & 0xFF;
+        }
+
+        /**
+         * Drops consumed bytes, growing the buffer if an element fills it, and reads more.
+         */
+        private boolean fill() throws IOException {
+            if (start > 0) {
+                System.arraycopy(buffer, start, buffer, 0, end - start);
+                discarded += start;
+                pos -= start;
+                end -= start;
+                start = 0;
+            }
+            if (end == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            int n = in.read(buffer, end, buffer.length - end);
+            if (n < 0) {
+                return false;
+            }
+            end += n;
+            return true;
+        }
+
+        private IOException malformed(String reason) {
+            return new IOException("Malformed translation array at offset " + (discarded + pos) + ": " + reason + ".");
+        }
+    }
+}
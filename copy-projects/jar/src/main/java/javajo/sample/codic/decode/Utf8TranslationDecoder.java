@@ -0,0 +1,85 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.decode;
+
+import javajo.sample.codic.model.Translation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Decoder reading the whole body into a byte buffer and parsing it with
+ * {@link Utf8TranslationParser}, without going through a {@code Reader}.
+ */
+public class Utf8TranslationDecoder implements TranslationDecoder {
+
+    public static final String NAME = "utf8";
+
+    private static final ThreadLocal<byte[]> BUFFERS = ThreadLocal.withInitial(() -> new byte[8192]);
+
+    // responses larger than this are read into a one-off buffer instead of growing the cached one
+    private static final int MAX_CACHED_BUFFER = 1 << 20;
+
+    private final StringPool pool;
+
+    public Utf8TranslationDecoder() {
+        this(null);
+    }
+
+    /**
+     * @param pool pool for decoded texts, or {@code null}
+     */
+    public Utf8TranslationDecoder(StringPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public List<Translation> decode(InputStream in) throws IOException {
+        return Utf8TranslationParser.parse(readFully(in), pool);
+    }
+
+    /**
+     * @return the candidate texts of all words, decoding nothing else
+     * @see Utf8TranslationParser#parseCandidateTexts(ByteBuffer, StringPool)
+     */
+    public List<String> decodeCandidateTexts(InputStream in) throws IOException {
+        return Utf8TranslationParser.parseCandidateTexts(readFully(in), pool);
+    }
+
+    private static ByteBuffer readFully(InputStream in) throws IOException {
+        byte[] buffer = BUFFERS.get();
+        int length = 0;
+        int n;
+        while ((n = in.read(buffer, length, buffer.length - length)) >= 0) {
+            length += n;
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                if (buffer.length <= MAX_CACHED_BUFFER) {
+                    BUFFERS.set(buffer);
+                }
+            }
+        }
+        return ByteBuffer.wrap(buffer, 0, length);
+    }
+}
@@ -0,0 +1,517 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.decode;
+
+import javajo.sample.codic.model.Candidates;
+import javajo.sample.codic.model.Translation;
+import javajo.sample.codic.model.Word;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Parser specialised for the translate.json schema, reading UTF-8 bytes
+ * straight from a {@link ByteBuffer}.
+ * <p>
+ * Keys are matched byte-wise, unknown members are skipped without decoding
+ * and no token objects are created: the only allocations are the model
+ * objects and the strings they hold, which can go through a {@link StringPool}.
+ * The buffer's position and limit are left untouched.
+ */
+public final class Utf8TranslationParser {
+
+    private static final byte[] SUCCESSFUL = ascii("successful");
+
+    private static final byte[] TEXT = ascii("text");
+
+    private static final byte[] TRANSLATED_TEXT = ascii("translated_text");
+
+    private static final byte[] WORDS = ascii("words");
+
+    private static final byte[] CANDIDATES = ascii("candidates");
+
+    private final ByteBuffer buffer;
+
+    private final StringPool pool;
+
+    private final int limit;
+
+    private int pos;
+
+    private char[] chars = new char[64];
+
+    private Utf8TranslationParser(ByteBuffer buffer, StringPool pool) {
+        this.buffer = buffer;
+        this.pool = pool;
+        this.pos = buffer.position();
+        this.limit = buffer.limit();
+    }
+
+    private static byte[] ascii(String key) {
+        return key.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    public static List<Translation> parse(ByteBuffer buffer) throws IOException {
+        return parse(buffer, null);
+    }
+
+    /**
+     * @param pool pool for texts, or {@code null} to allocate every text
+     */
+    public static List<Translation> parse(ByteBuffer buffer, StringPool pool) throws IOException {
+        Utf8TranslationParser parser = new Utf8TranslationParser(buffer, pool);
+        List<Translation> translations = parser.parseTranslations();
+        parser.expectEnd();
+        return translations;
+    }
+
+    /**
+     * Parses a single translation object, or {@code null}, spanning the whole buffer.
+     */
+    static Translation parseElement(ByteBuffer buffer, StringPool pool) throws IOException {
+        Utf8TranslationParser parser = new Utf8TranslationParser(buffer, pool);
+        Translation translation = parser.consumeNull() ? null : parser.parseTranslation();
+        parser.expectEnd();
+        return translation;
+    }
+
+    /**
+     * Projection returning only the {@code words[].candidates[].text} values, flattened in
+     * document order; every other member is skipped without being decoded.
+     */
+    public static List<String> parseCandidateTexts(ByteBuffer buffer, StringPool pool) throws IOException {
+        Utf8TranslationParser parser = new Utf8TranslationParser(buffer, pool);
+        List<String> texts = new ArrayList<>(4);
+        parser.collectCandidateTexts(texts);
+        parser.expectEnd();
+        return texts;
+    }
+
+    private void collectCandidateTexts(List<String> texts) throws IOException {
+        // translations[] -> words[] -> candidates[] -> text
+        forEachElement(() -> forEachMember(WORDS,
+                () -> forEachElement(() -> forEachMember(CANDIDATES,
+                        () -> forEachElement(() -> forEachMember(TEXT, () -> {
+                            String text = parseString();
+                            if (text != null) {
+                                texts.add(text);
+                            }
+                        }))))));
+    }
+
+    private interface Step {
+        void run() throws IOException;
+    }
+
+    private void forEachElement(Step element) throws IOException {
+        if (consumeNull()) {
+            return;
+        }
+        expect('[');
+        if (consume(']')) {
+            return;
+        }
+        do {
+            if (!consumeNull()) {
+                element.run();
+            }
+        } while (consume(','));
+        expect(']');
+    }
+
+    private void forEachMember(byte[] name, Step value) throws IOException {
+        expect('{');
+        if (consume('}')) {
+            return;
+        }
+        do {
+            int keyStart = key();
+            int keyEnd = pos - 1;
+            expect(':');
+            if (keyIs(keyStart, keyEnd, name)) {
+                value.run();
+            } else {
+                skipValue();
+            }
+        } while (consume(','));
+        expect('}');
+    }
+
+    private List<Translation> parseTranslations() throws IOException {
+        expect('[');
+        List<Translation> translations = new ArrayList<>(1);
+        if (consume(']')) {
+            return translations;
+        }
+        do {
+            translations.add(consumeNull() ? null : parseTranslation());
+        } while (consume(','));
+        expect(']');
+        return translations;
+    }
+
+    private Translation parseTranslation() throws IOException {
+        Translation translation = new Translation();
+        expect('{');
+        if (consume('}')) {
+            return translation;
+        }
+        do {
+            int keyStart = key();
+            int keyEnd = pos - 1;
+            expect(':');
+            if (keyIs(keyStart, keyEnd, TEXT)) {
+                translation.setText(parseString());
+            } else if (keyIs(keyStart, keyEnd, TRANSLATED_TEXT)) {
+                translation.setTranslatedText(parseString());
+            } else if (keyIs(keyStart, keyEnd, SUCCESSFUL)) {
+                translation.setSuccessful(parseBoolean());
+            } else if (keyIs(keyStart, keyEnd, WORDS)) {
+                translation.setWords(parseWords());
+            } else {
+                skipValue();
+            }
+        } while (consume(','));
+        expect('}');
+        return translation;
+    }
+
+    private List<Word> parseWords() throws IOException {
+        if (consumeNull()) {
+            return null;
+        }
+        expect('[');
+        List<Word> words = new ArrayList<>(2);
+        if (consume(']')) {
+            return words;
+        }
+        do {
+            words.add(consumeNull() ? null : parseWord());
+        } while (consume(','));
+        expect(']');
+        return words;
+    }
+
+    private Word parseWord() throws IOException {
+        Word word = new Word();
+        expect('{');
+        if (consume('}')) {
+            return word;
+        }
+        do {
+            int keyStart = key();
+            int keyEnd = pos - 1;
+            expect(':');
+            if (keyIs(keyStart, keyEnd, TEXT)) {
+                word.setText(parseString());
+            } else if (keyIs(keyStart, keyEnd, TRANSLATED_TEXT)) {
+                word.setTranslatedText(parseString());
+            } else if (keyIs(keyStart, keyEnd, SUCCESSFUL)) {
+                word.setSuccessful(parseBoolean());
+            } else if (keyIs(keyStart, keyEnd, CANDIDATES)) {
+                word.setCandidates(parseCandidates());
+            } else {
+                skipValue();
+            }
+        } while (consume(','));
+        expect('}');
+        return word;
+    }
+
+    private List<Candidates> parseCandidates() throws IOException {
+        if (consumeNull()) {
+            return null;
+        }
+        expect('[');
+        List<Candidates> candidates = new ArrayList<>(4);
+        if (consume(']')) {
+            return candidates;
+        }
+        do {
+            candidates.add(consumeNull() ? null : new Candidates(parseCandidateText()));
+        } while (consume(','));
+        expect(']');
+        return candidates;
+    }
+
+    private String parseCandidateText() throws IOException {
+        String text = null;
+        expect('{');
+        if (consume('}')) {
+            return null;
+        }
+        do {
+            int keyStart = key();
+            int keyEnd = pos - 1;
+            expect(':');
+            if (keyIs(keyStart, keyEnd, TEXT)) {
+                text = parseString();
+            } else {
+                skipValue();
+            }
+        } while (consume(','));
+        expect('}');
+        return text;
+    }
+
+    /**
+     * Reads a member name and returns the index of its first byte; {@code pos} is left after the closing quote.
+     */
+    private int key() throws IOException {
+        expect('"');
+        int start = pos;
+        while (pos < limit) {
+            byte b = buffer.get(pos++);
+            if (b == '"') {
+                return start;
+            }
+            if (b == '\\') {
+                pos++;
+            }
+        }
+        throw malformed("unterminated member name");
+    }
+
+    private boolean keyIs(int start, int end, byte[] name) {
+        if (end - start != name.length) {
+            return false;
+        }
+        for (int i = 0; i < name.length; i++) {
+            if (buffer.get(start + i) != name[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean parseBoolean() throws IOException {
+        skipWhitespace();
+        if (literal("true")) {
+            return true;
+        }
+        if (literal("false") || literal("null")) {
+            return false;
+        }
+        throw malformed("boolean expected");
+    }
+
+    private String parseString() throws IOException {
+        if (consumeNull()) {
+            return null;
+        }
+        expect('"');
+        int length = 0;
+        while (true) {
+            if (pos >= limit) {
+                throw malformed("unterminated string");
+            }
+            if (length + 2 > chars.length) {
+                chars = Arrays.copyOf(chars, chars.length * 2);
+            }
+            int b = buffer.get(pos++);
+            if (b == '"') {
+                break;
+            }
+            if (b >= 0) {
+                chars[length++] = b == '\\' ? escape() : (char) b;
+            } else if ((b & 0xe0) == 0xc0) {
+                chars[length++] = (char) ((b & 0x1f) << 6 | continuation());
+            } else if ((b & 0xf0) == 0xe0) {
+                int c = (b & 0x0f) << 12 | continuation() << 6;
+                chars[length++] = (char) (c | continuation());
+            } else if ((b & 0xf8) == 0xf0) {
+                int c = (b & 0x07) << 18 | continuation() << 12;
+                c |= continuation() << 6;
+                c |= continuation();
+                chars[length++] = Character.highSurrogate(c);
+                chars[length++] = Character.lowSurrogate(c);
+            } else {
+                throw malformed("invalid UTF-8 byte");
+            }
+        }
+        return pool == null ? new String(chars, 0, length) : pool.intern(chars, 0, length);
+    }
+
+    private int continuation() throws IOException {
+        if (pos >= limit) {
+            throw malformed("truncated UTF-8 sequence");
+        }
+        int b = buffer.get(pos++);
+        if ((b & 0xc0) != 0x80) {
+            throw malformed("invalid UTF-8 continuation byte");
+        }
+        return b & 0x3f;
+    }
+
+    private char escape() throws IOException {
+        if (pos >= limit) {
+            throw malformed("unterminated escape");
+        }
+        byte b = buffer.get(pos++);
+        switch (b) {
+            case '"':
+            case '\\':
+            case '/':
+                return (char) b;
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                if (pos + 4 > limit) {
+                    throw malformed("truncated unicode escape");
+                }
+                int c = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(buffer.get(pos++), 16);
+                    if (digit < 0) {
+                        throw malformed("invalid unicode escape");
+                    }
+                    c = c << 4 | digit;
+                }
+                return (char) c;
+            default:
+                throw malformed("invalid escape");
+        }
+    }
+
+    private void skipValue() throws IOException {
+        skipWhitespace();
+        if (pos >= limit) {
+            throw malformed("value expected");
+        }
+        byte b = buffer.get(pos);
+        if (b == '"') {
+            skipString();
+        } else if (b == '{' || b == '[') {
+            int depth = 0;
+            do {
+                b = buffer.get(pos);
+                if (b == '"') {
+                    skipString();
+                    continue;
+                }
+                if (b == '{' || b == '[') {
+                    depth++;
+                } else if (b == '}' || b == ']') {
+                    depth--;
+                }
+                pos++;
+            } while (depth > 0 && pos < limit);
+            if (depth > 0) {
+                throw malformed("unterminated value");
+            }
+        } else {
+            // number or literal
+            while (pos < limit) {
+                b = buffer.get(pos);
+                if (b == ',' || b == '}' || b == ']' || isWhitespace(b)) {
+                    break;
+                }
+                pos++;
+            }
+        }
+    }
+
+    private void skipString() throws IOException {
+        pos++;
+        while (pos < limit) {
+            byte b = buffer.get(pos++);
+            if (b == '"') {
+                return;
+            }
+            if (b == '\\') {
+                pos++;
+            }
+        }
+        throw malformed("unterminated string");
+    }
+
+    private boolean consumeNull() {
+        skipWhitespace();
+        return literal("null");
+    }
+
+    /**
+     * Consumes {@code literal} only if it is followed by a delimiter, so {@code truex} is not read as {@code true}.
+     */
+    private boolean literal(String literal) {
+        int length = literal.length();
+        if (pos + length > limit) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(pos + i) != literal.charAt(i)) {
+                return false;
+            }
+        }
+        if (pos + length < limit && !isDelimiter(buffer.get(pos + length))) {
+            return false;
+        }
+        pos += length;
+        return true;
+    }
+
+    private static boolean isDelimiter(byte b) {
+        return b == ',' || b == ']' || b == '}' || b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    private boolean consume(char c) {
+        skipWhitespace();
+        if (pos < limit && buffer.get(pos) == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(char c) throws IOException {
+        if (!consume(c)) {
+            throw malformed("'" + c + "' expected");
+        }
+    }
+
+    private void expectEnd() throws IOException {
+        skipWhitespace();
+        if (pos != limit) {
+            throw malformed("trailing data");
+        }
+    }
+
+    private void skipWhitespace() {
+        while (pos < limit && isWhitespace(buffer.get(pos))) {
+            pos++;
+        }
+    }
+
+    static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    private IOException malformed(String reason) {
+        return new IOException("Malformed translate.json response at offset " + pos + ": " + reason + ".");
+    }
+}
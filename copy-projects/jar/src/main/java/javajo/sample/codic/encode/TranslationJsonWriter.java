@@ -0,0 +1,64 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.encode;
+
+import javajo.sample.codic.model.Translation;
+import javajo.sample.codic.model.TranslationJppAdapter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes translate results as translate.json, without reflection.
+ * <p>
+ * Encoding is done by {@code TranslationJppAdapter.encodeList}, generated by the
+ * JsonPullParser processor. It only writes to a {@link Writer}, so an
+ * {@link OutputStream} gets UTF-8 through a buffered writer, which is flushed
+ * into the stream when done. Neither target is closed.
+ * {@code EncodeBenchmark} compares this with Genson's serializer.
+ */
+public final class TranslationJsonWriter {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private TranslationJsonWriter() {}
+
+    public static String toJson(List<Translation> translations) {
+        StringWriter writer = new StringWriter();
+        try {
+            write(translations, writer);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return writer.toString();
+    }
+
+    public static void write(List<Translation> translations, Writer writer) throws IOException {
+        TranslationJppAdapter.encodeList(writer, translations);
+    }
+
+    public static void write(List<Translation> translations, OutputStream stream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), BUFFER_SIZE);
+        write(translations, writer);
+        writer.flush();
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.limit;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Concurrency limit that adapts with additive-increase/multiplicative-decrease.
+ * <p>
+ * Each fast success grows the limit by {@code 1 / limit}, i.e. by about one
+ * per round trip of the whole window. An overload signal (429, 5xx, I/O
+ * failure) or a round trip slower than {@code latencyTolerance} times the
+ * observed baseline shrinks it by {@code backoffRatio}. Tasks submitted
+ * over the limit wait in FIFO order without holding a thread.
+ */
+public final class AimdConcurrencyLimit {
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double backoffRatio;
+
+    private final double latencyTolerance;
+
+    private final ArrayDeque<Runnable> waiting = new ArrayDeque<>();
+
+    private double limit;
+
+    private int inFlight;
+
+    private long baselineRttNanos = Long.MAX_VALUE;
+
+    // set while one thread hands freed slots to waiters; releases meanwhile only free their slot
+    private boolean draining;
+
+    private AimdConcurrencyLimit(Builder builder) {
+        this.minLimit = builder.minLimit;
+        this.maxLimit = builder.maxLimit;
+        this.backoffRatio = builder.backoffRatio;
+        this.latencyTolerance = builder.latencyTolerance;
+        this.limit = builder.initialLimit;
+    }
+
+    /**
+     * Runs {@code task} now if a slot is free, otherwise once one is released.
+     * The task must eventually report its outcome through exactly one of
+     * {@link #onSuccess(long)}, {@link #onDropped()} or {@link #onIgnored()}.
+     */
+    public void execute(Runnable task) {
+        synchronized (this) {
+            if (inFlight >= (int) limit) {
+                waiting.add(task);
+                return;
+            }
+            inFlight++;
+        }
+        task.run();
+    }
+
+    public void onSuccess(long rttNanos) {
+        synchronized (this) {
+            // let the baseline drift upwards slowly so that a lucky early sample does not pin it
+            baselineRttNanos = baselineRttNanos == Long.MAX_VALUE ?
+                    rttNanos : Math.min(rttNanos, baselineRttNanos + (baselineRttNanos >> 7));
+            if (rttNanos > baselineRttNanos * latencyTolerance) {
+                decrease();
+            } else if (inFlight * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+        }
+        release();
+    }
+
+    public void onDropped() {
+        synchronized (this) {
+            decrease();
+        }
+        release();
+    }
+
+    public void onIgnored() {
+        release();
+    }
+
+    private void decrease() {
+        limit = Math.max(minLimit, limit * backoffRatio);
+    }
+
+    /**
+     * Frees a slot and runs waiters that now fit. A waiter may report back
+     * before it returns (e.g. when its caller already gave up), so the freed
+     * slots are drained in a loop rather than by recursion.
+     */
+    private void release() {
+        synchronized (this) {
+            inFlight--;
+            if (draining) {
+                return;
+            }
+            draining = true;
+        }
+        while (true) {
+            Runnable task;
+            synchronized (this) {
+                if (inFlight >= (int) limit || waiting.isEmpty()) {
+                    draining = false;
+                    return;
+                }
+                task = waiting.poll();
+                inFlight++;
+            }
+            try {
+                task.run();
+            } catch (RuntimeException | Error e) {
+                synchronized (this) {
+                    draining = false;
+                }
+                throw e;
+            }
+        }
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getWaiting() {
+        return waiting.size();
+    }
+
+    public synchronized long getBaselineRtt(TimeUnit unit) {
+        return baselineRttNanos == Long.MAX_VALUE ? -1L : unit.convert(baselineRttNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public static class Builder {
+
+        private int initialLimit = 10;
+
+        private int minLimit = 1;
+
+        private int maxLimit = 200;
+
+        private double backoffRatio = 0.9;
+
+        private double latencyTolerance = 2.0;
+
+        public Builder initialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+            return this;
+        }
+
+        public Builder minLimit(int minLimit) {
+            this.minLimit = minLimit;
+            return this;
+        }
+
+        public Builder maxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+            return this;
+        }
+
+        public Builder backoffRatio(double backoffRatio) {
+            if (backoffRatio <= 0 || backoffRatio >= 1) {
+                throw new IllegalArgumentException("backoffRatio must be in (0, 1)");
+            }
+            this.backoffRatio = backoffRatio;
+            return this;
+        }
+
+        public Builder latencyTolerance(double latencyTolerance) {
+            if (latencyTolerance < 1) {
+                throw new IllegalArgumentException("latencyTolerance < 1");
+            }
+            this.latencyTolerance = latencyTolerance;
+            return this;
+        }
+
+        public AimdConcurrencyLimit build() {
+            if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+                throw new IllegalArgumentException("limits must satisfy 1 <= minLimit <= initialLimit <= maxLimit");
+            }
+            return new AimdConcurrencyLimit(this);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.limit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Token-bucket rate limiter that hands out reservations instead of blocking.
+ * <p>
+ * A caller that finds the bucket empty takes a token on credit and is told
+ * how long to wait, so requests queued behind it are spaced evenly at the
+ * configured rate.
+ */
+public final class TokenBucket {
+
+    private final double permitsPerNano;
+
+    private final double burst;
+
+    private final LongSupplier ticker;
+
+    private double tokens;
+
+    private long lastRefill;
+
+    public TokenBucket(double permitsPerSecond, int burst) {
+        this(permitsPerSecond, burst, System::nanoTime);
+    }
+
+    TokenBucket(double permitsPerSecond, int burst, LongSupplier ticker) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond <= 0");
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("burst < 1");
+        }
+        this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = burst;
+        this.ticker = ticker;
+        this.tokens = burst;
+        this.lastRefill = ticker.getAsLong();
+    }
+
+    /**
+     * Takes one token.
+     *
+     * @return nanoseconds the caller has to wait before using it; {@code 0} when it is available now.
+     */
+    public synchronized long reserve() {
+        long now = ticker.getAsLong();
+        tokens = Math.min(burst, tokens + (now - lastRefill) * permitsPerNano);
+        lastRefill = now;
+        tokens -= 1;
+        return tokens >= 0 ? 0L : (long) Math.ceil(-tokens / permitsPerNano);
+    }
+
+    public double getPermitsPerSecond() {
+        return permitsPerNano * TimeUnit.SECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.metrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Request counters and per-phase latency histograms of a {@link javajo.sample.codic.Codic}.
+ */
+public final class CodicMetrics implements CodicMetricsMXBean {
+
+    public static final String DOMAIN = "javajo.sample.codic";
+
+    public static final String IO_ERROR = "io";
+
+    public static final String DECODE_ERROR = "decode";
+
+    private final LongAdder requests = new LongAdder();
+
+    private final LongAdder bytesReceived = new LongAdder();
+
+    private final LongAdder cacheErrors = new LongAdder();
+
+    private final ConcurrentMap<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    private final LatencyHistogram total = new LatencyHistogram();
+
+    private final LatencyHistogram connect = new LatencyHistogram();
+
+    private final LatencyHistogram timeToFirstByte = new LatencyHistogram();
+
+    private final LatencyHistogram download = new LatencyHistogram();
+
+    private final LatencyHistogram decode = new LatencyHistogram();
+
+    public void recordResponse(long totalNanos, long connectNanos, long timeToFirstByteNanos,
+                               long downloadNanos, long decodeNanos, long bytes) {
+        requests.increment();
+        bytesReceived.add(bytes);
+        total.record(totalNanos);
+        connect.record(connectNanos);
+        timeToFirstByte.record(timeToFirstByteNanos);
+        download.record(downloadNanos);
+        decode.record(decodeNanos);
+    }
+
+    public void recordError(String status) {
+        requests.increment();
+        errors.computeIfAbsent(status, s -> new LongAdder()).increment();
+    }
+
+    public void recordCacheError() {
+        cacheErrors.increment();
+    }
+
+    public MetricsSnapshot snapshot() {
+        return new MetricsSnapshot(this);
+    }
+
+    public ObjectName registerMBean(String name) {
+        try {
+            ObjectName objectName = objectName(name);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            return objectName;
+        } catch (InstanceAlreadyExistsException | MBeanRegistrationException | NotCompliantMBeanException e) {
+            throw new IllegalStateException("Exception in registering metrics[" + name + "].", e);
+        }
+    }
+
+    public void unregisterMBean(String name) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName(name));
+        } catch (InstanceNotFoundException | MBeanRegistrationException e) {
+            throw new IllegalStateException("Exception in unregistering metrics[" + name + "].", e);
+        }
+    }
+
+    private static ObjectName objectName(String name) {
+        try {
+            return new ObjectName(DOMAIN + ":type=CodicMetrics,name=" + ObjectName.quote(name));
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalArgumentException("Invalid metrics name[" + name + "].", e);
+        }
+    }
+
+    @Override
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    @Override
+    public long getErrorCount() {
+        return errors.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    @Override
+    public Map<String, Long> getErrorsByStatus() {
+        Map<String, Long> map = new TreeMap<>();
+        errors.forEach((status, count) -> map.put(status, count.sum()));
+        return map;
+    }
+
+    @Override
+    public long getBytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    @Override
+    public long getCacheErrorCount() {
+        return cacheErrors.sum();
+    }
+
+    @Override
+    public LatencySummary getTotalLatency() {
+        return total.summary();
+    }
+
+    @Override
+    public LatencySummary getConnectLatency() {
+        return connect.summary();
+    }
+
+    @Override
+    public LatencySummary getTimeToFirstByteLatency() {
+        return timeToFirstByte.summary();
+    }
+
+    @Override
+    public LatencySummary getDownloadLatency() {
+        return download.summary();
+    }
+
+    @Override
+    public LatencySummary getDecodeLatency() {
+        return decode.summary();
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.metrics;
+
+import java.util.Map;
+
+public interface CodicMetricsMXBean {
+
+    long getRequestCount();
+
+    long getErrorCount();
+
+    /**
+     * @return error counts keyed by HTTP status, {@code "io"} for transport failures and {@code "decode"} for malformed bodies.
+     */
+    Map<String, Long> getErrorsByStatus();
+
+    long getBytesReceived();
+
+    /**
+     * Results that could not be stored in the cache; the callers still received them.
+     */
+    long getCacheErrorCount();
+
+    LatencySummary getTotalLatency();
+
+    /**
+     * Time until a connection was ready, including waiting in the dispatcher queue.
+     */
+    LatencySummary getConnectLatency();
+
+    LatencySummary getTimeToFirstByteLatency();
+
+    /**
+     * Time the decoder spent blocked reading the response body.
+     */
+    LatencySummary getDownloadLatency();
+
+    /**
+     * Time spent decoding, excluding time blocked on the network.
+     */
+    LatencySummary getDecodeLatency();
+}
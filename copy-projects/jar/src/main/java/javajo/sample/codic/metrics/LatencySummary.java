@@ -0,0 +1,91 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.metrics;
+
+import java.beans.ConstructorProperties;
+import java.util.StringJoiner;
+
+/**
+ * Percentiles of one {@link LatencyHistogram}, in microseconds.
+ */
+public final class LatencySummary {
+
+    private final long count;
+
+    private final long meanMicros;
+
+    private final long p50Micros;
+
+    private final long p90Micros;
+
+    private final long p99Micros;
+
+    private final long p999Micros;
+
+    private final long maxMicros;
+
+    @ConstructorProperties({"count", "meanMicros", "p50Micros", "p90Micros", "p99Micros", "p999Micros", "maxMicros"})
+    public LatencySummary(long count, long meanMicros, long p50Micros, long p90Micros, long p99Micros, long p999Micros, long maxMicros) {
+        this.count = count;
+        this.meanMicros = meanMicros;
+        this.p50Micros = p50Micros;
+        this.p90Micros = p90Micros;
+        this.p99Micros = p99Micros;
+        this.p999Micros = p999Micros;
+        this.maxMicros = maxMicros;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMeanMicros() {
+        return meanMicros;
+    }
+
+    public long getP50Micros() {
+        return p50Micros;
+    }
+
+    public long getP90Micros() {
+        return p90Micros;
+    }
+
+    public long getP99Micros() {
+        return p99Micros;
+    }
+
+    public long getP999Micros() {
+        return p999Micros;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", "LatencySummary:[", "]")
+                .add("count: [" + count + "]")
+                .add("mean: [" + meanMicros + "us]")
+                .add("p50: [" + p50Micros + "us]")
+                .add("p90: [" + p90Micros + "us]")
+                .add("p99: [" + p99Micros + "us]")
+                .add("p999: [" + p999Micros + "us]")
+                .add("max: [" + maxMicros + "us]")
+                .toString();
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.StringJoiner;
+
+public final class MetricsSnapshot {
+
+    private final long requestCount;
+
+    private final long errorCount;
+
+    private final Map<String, Long> errorsByStatus;
+
+    private final long bytesReceived;
+
+    private final long cacheErrorCount;
+
+    private final LatencySummary totalLatency;
+
+    private final LatencySummary connectLatency;
+
+    private final LatencySummary timeToFirstByteLatency;
+
+    private final LatencySummary downloadLatency;
+
+    private final LatencySummary decodeLatency;
+
+    MetricsSnapshot(CodicMetrics metrics) {
+        this.requestCount = metrics.getRequestCount();
+        this.errorCount = metrics.getErrorCount();
+        this.errorsByStatus = Collections.unmodifiableMap(metrics.getErrorsByStatus());
+        this.bytesReceived = metrics.getBytesReceived();
+        this.cacheErrorCount = metrics.getCacheErrorCount();
+        this.totalLatency = metrics.getTotalLatency();
+        this.connectLatency = metrics.getConnectLatency();
+        this.timeToFirstByteLatency = metrics.getTimeToFirstByteLatency();
+        this.downloadLatency = metrics.getDownloadLatency();
+        this.decodeLatency = metrics.getDecodeLatency();
+    }
+
+    public long getRequestCount() {
+        return requestCount;
+    }
+
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    public Map<String, Long> getErrorsByStatus() {
+        return errorsByStatus;
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    public long getCacheErrorCount() {
+        return cacheErrorCount;
+    }
+
+    public LatencySummary getTotalLatency() {
+        return totalLatency;
+    }
+
+    public LatencySummary getConnectLatency() {
+        return connectLatency;
+    }
+
+    public LatencySummary getTimeToFirstByteLatency() {
+        return timeToFirstByteLatency;
+    }
+
+    public LatencySummary getDownloadLatency() {
+        return downloadLatency;
+    }
+
+    public LatencySummary getDecodeLatency() {
+        return decodeLatency;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", "MetricsSnapshot:[", "]")
+                .add("requestCount: [" + requestCount + "]")
+                .add("errorCount: [" + errorCount + "]")
+                .add("errorsByStatus: [" + errorsByStatus + "]")
+                .add("bytesReceived: [" + bytesReceived + "]")
+                .add("cacheErrorCount: [" + cacheErrorCount + "]")
+                .add("total: [" + totalLatency + "]")
+                .add("connect: [" + connectLatency + "]")
+                .add("timeToFirstByte: [" + timeToFirstByteLatency + "]")
+                .add("download: [" + downloadLatency + "]")
+                .add("decode: [" + decodeLatency + "]")
+                .toString();
+    }
+}
@@ -15,11 +15,16 @@
  */
 package javajo.sample.codic.model;
 
+import net.vvakame.util.jsonpullparser.annotation.JsonKey;
+import net.vvakame.util.jsonpullparser.annotation.JsonModel;
+
 import java.util.Objects;
 import java.util.StringJoiner;
 
+@JsonModel
 public final class Candidates {
 
+    @JsonKey
     private String text;
 
     public Candidates() {}
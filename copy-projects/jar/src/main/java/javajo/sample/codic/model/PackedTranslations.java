@@ -0,0 +1,271 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Immutable, compact form of a translate result for long-lived caches.
+ * <p>
+ * All texts live in one UTF-8 buffer addressed by an offset table, and the
+ * tree of translations, words and candidates is flattened into a single
+ * {@code int[]}, so a cached result costs three arrays instead of an object
+ * (and a {@code String}) per candidate. {@link #get(int)} materializes a fresh
+ * {@link Translation}, so the usual {@code getWords()}/{@code getCandidates()}
+ * view keeps working and mutating it never affects the packed data. Null
+ * translations, words and candidates read back as {@code null}.
+ */
+public final class PackedTranslations extends AbstractList<Translation> implements RandomAccess {
+
+    private static final int SUCCESSFUL = 1;
+
+    private static final int NULL_NODE = 0;
+
+    private static final int NULL_CANDIDATE = Integer.MIN_VALUE;
+
+    private static final PackedTranslations EMPTY = new PackedTranslations(new byte[0], new int[0], new int[] {2 << 1});
+
+    // UTF-8 texts back to back
+    private final byte[] data;
+
+    // end offset of each text in data, complemented (~end) for null texts, NULL_CANDIDATE for a null candidate
+    private final int[] ends;
+
+    // shape[0] is the translation count, then one node per translation and per word in
+    // pre-order: (child count + 2) << 1 | successful, where a child count of -1 is a null list
+    // and NULL_NODE a null translation or word
+    private final int[] shape;
+
+    private PackedTranslations(byte[] data, int[] ends, int[] shape) {
+        this.data = data;
+        this.ends = ends;
+        this.shape = shape;
+    }
+
+    public static PackedTranslations pack(List<Translation> translations) {
+        if (translations instanceof PackedTranslations) {
+            return (PackedTranslations) translations;
+        }
+        if (translations.isEmpty()) {
+            return EMPTY;
+        }
+        Packer packer = new Packer();
+        packer.node(translations.size(), false);
+        for (Translation translation : translations) {
+            if (translation == null) {
+                packer.nullNode();
+                continue;
+            }
+            List<Word> words = translation.getWords();
+            packer.node(words == null ? -1 : words.size(), translation.isSuccessful());
+            packer.text(translation.getText());
+            packer.text(translation.getTranslatedText());
+            if (words == null) {
+                continue;
+            }
+            for (Word word : words) {
+                if (word == null) {
+                    packer.nullNode();
+                    continue;
+                }
+                List<Candidates> candidates = word.getCandidates();
+                packer.node(candidates == null ? -1 : candidates.size(), word.isSuccessful());
+                packer.text(word.getText());
+                packer.text(word.getTranslatedText());
+                if (candidates == null) {
+                    continue;
+                }
+                for (Candidates candidate : candidates) {
+                    if (candidate == null) {
+                        packer.nullCandidate();
+                    } else {
+                        packer.text(candidate.getText());
+                    }
+                }
+            }
+        }
+        return packer.build();
+    }
+
+    @Override
+    public int size() {
+        return children(shape[0]);
+    }
+
+    @Override
+    public Translation get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        Cursor cursor = new Cursor();
+        for (int i = 0; i < index; i++) {
+            skipTranslation(cursor);
+        }
+        return readTranslation(cursor);
+    }
+
+    /**
+     * @return bytes held by the packed arrays, excluding object headers
+     */
+    public int dataSize() {
+        return data.length + (ends.length + shape.length) * Integer.BYTES;
+    }
+
+    private void skipTranslation(Cursor cursor) {
+        int node = shape[cursor.node++];
+        if (node == NULL_NODE) {
+            return;
+        }
+        cursor.text += 2;
+        for (int w = children(node); w > 0; w--) {
+            int word = shape[cursor.node++];
+            if (word != NULL_NODE) {
+                cursor.text += 2 + Math.max(0, children(word));
+            }
+        }
+    }
+
+    private Translation readTranslation(Cursor cursor) {
+        int node = shape[cursor.node++];
+        if (node == NULL_NODE) {
+            return null;
+        }
+        Translation translation = new Translation();
+        translation.setSuccessful((node & SUCCESSFUL) != 0);
+        translation.setText(text(cursor.text++));
+        translation.setTranslatedText(text(cursor.text++));
+        int count = children(node);
+        if (count >= 0) {
+            List<Word> words = new ArrayList<>(count);
+            for (int w = 0; w < count; w++) {
+                words.add(readWord(cursor));
+            }
+            translation.setWords(words);
+        }
+        return translation;
+    }
+
+    private Word readWord(Cursor cursor) {
+        int node = shape[cursor.node++];
+        if (node == NULL_NODE) {
+            return null;
+        }
+        Word word = new Word();
+        word.setSuccessful((node & SUCCESSFUL) != 0);
+        word.setText(text(cursor.text++));
+        word.setTranslatedText(text(cursor.text++));
+        int count = children(node);
+        if (count >= 0) {
+            List<Candidates> candidates = new ArrayList<>(count);
+            for (int c = 0; c < count; c++) {
+                int text = cursor.text++;
+                candidates.add(ends[text] == NULL_CANDIDATE ? null : new Candidates(text(text)));
+            }
+            word.setCandidates(candidates);
+        }
+        return word;
+    }
+
+    private static int children(int node) {
+        return (node >>> 1) - 2;
+    }
+
+    private String text(int index) {
+        int end = ends[index];
+        if (end < 0) {
+            return null;
+        }
+        int start = 0;
+        for (int i = index - 1; i >= 0; i--) {
+            if (ends[i] != NULL_CANDIDATE) {
+                start = ends[i] < 0 ? ~ends[i] : ends[i];
+                break;
+            }
+        }
+        return new String(data, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    private static final class Cursor {
+
+        private int node = 1;
+
+        private int text;
+    }
+
+    private static final class Packer {
+
+        private byte[] data = new byte[128];
+
+        private int length;
+
+        private int[] ends = new int[16];
+
+        private int texts;
+
+        private int[] shape = new int[8];
+
+        private int nodes;
+
+        private void node(int children, boolean successful) {
+            shape((children + 2) << 1 | (successful ? SUCCESSFUL : 0));
+        }
+
+        private void nullNode() {
+            shape(NULL_NODE);
+        }
+
+        private void shape(int node) {
+            if (nodes == shape.length) {
+                shape = Arrays.copyOf(shape, nodes * 2);
+            }
+            shape[nodes++] = node;
+        }
+
+        private void nullCandidate() {
+            end(NULL_CANDIDATE);
+        }
+
+        private void end(int end) {
+            if (texts == ends.length) {
+                ends = Arrays.copyOf(ends, texts * 2);
+            }
+            ends[texts++] = end;
+        }
+
+        private void text(String text) {
+            if (text == null) {
+                end(~length);
+                return;
+            }
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            if (length + bytes.length > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + bytes.length));
+            }
+            System.arraycopy(bytes, 0, data, length, bytes.length);
+            length += bytes.length;
+            end(length);
+        }
+
+        private PackedTranslations build() {
+            return new PackedTranslations(Arrays.copyOf(data, length), Arrays.copyOf(ends, texts), Arrays.copyOf(shape, nodes));
+        }
+    }
+}
@@ -16,19 +16,27 @@
 package javajo.sample.codic.model;
 
 import com.owlike.genson.annotation.JsonProperty;
+import net.vvakame.util.jsonpullparser.annotation.JsonKey;
+import net.vvakame.util.jsonpullparser.annotation.JsonModel;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.StringJoiner;
 
+@JsonModel
 public final class Translation {
 
+    @JsonKey
     private boolean successful;
 
+    @JsonKey
     private String text;
 
+    @JsonKey("translated_text")
     @JsonProperty("translated_text")
     private String translatedText;
 
+    @JsonKey
     private List<Word> words;
 
     public boolean isSuccessful() {
@@ -63,6 +71,22 @@ public final class Translation {
         this.words = words;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Translation)) return false;
+        Translation that = (Translation) o;
+        return Objects.equals(successful, that.successful) &&
+                Objects.equals(text, that.text) &&
+                Objects.equals(translatedText, that.translatedText) &&
+                Objects.equals(words, that.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(successful, text, translatedText, words);
+    }
+
     @Override
     public String toString() {
         return new StringJoiner(", ", "Translation:[", "]")
@@ -0,0 +1,491 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.model;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary format for translate results, for caches and process-to-process transfer.
+ * <p>
+ * Translations and words are written like the nodes of {@link PackedTranslations}: one varint
+ * carrying the child count and the successful flag, followed by their texts. With the string
+ * table enabled each distinct text is written once up front and referenced by index afterwards,
+ * which pays off as a word's translated text usually reappears among its candidates.
+ * <pre>
+ * stream : magic(byte) version(byte) flags(byte) [table] node(translations) translation*
+ * table  : count(varint) (length(varint) UTF-8)*
+ * node   : (child count + 2) &lt;&lt; 1 | successful (varint), child count -1 for a null list, 0 for a null element
+ * text   : 0 for null, else table index + 1 or UTF-8 length + 1 (varint) followed by UTF-8
+ * translation : node [text(text) text(translated_text) word*]
+ * word        : node [text(text) text(translated_text) candidate*]
+ * candidate   : 0 for null, else text shifted by one
+ * </pre>
+ * Like {@link PackedTranslations}, null translations, words and candidates read back as {@code null}.
+ */
+public final class TranslationCodec {
+
+    public static final int VERSION = 2;
+
+    private static final int MAGIC = 0xC7;
+
+    private static final int STRING_TABLE = 1;
+
+    private static final int SUCCESSFUL = 1;
+
+    private static final int NULL_ELEMENT = 0;
+
+    private final boolean stringTable;
+
+    private TranslationCodec(Builder builder) {
+        this.stringTable = builder.stringTable;
+    }
+
+    public byte[] encode(List<Translation> translations) {
+        ArrayOutput out = new ArrayOutput();
+        try {
+            write(translations, out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return Arrays.copyOf(out.bytes, out.length);
+    }
+
+    public void write(List<Translation> translations, DataOutput out) throws IOException {
+        write(translations, new Output() {
+            @Override
+            public void writeByte(int b) throws IOException {
+                out.writeByte(b);
+            }
+
+            @Override
+            public void write(byte[] bytes) throws IOException {
+                out.write(bytes);
+            }
+        });
+    }
+
+    /**
+     * Writes from the buffer's position.
+     *
+     * @throws java.nio.BufferOverflowException if the buffer is too small
+     */
+    public void write(List<Translation> translations, ByteBuffer out) {
+        try {
+            write(translations, new Output() {
+                @Override
+                public void writeByte(int b) {
+                    out.put((byte) b);
+                }
+
+                @Override
+                public void write(byte[] bytes) {
+                    out.put(bytes);
+                }
+            });
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void write(List<Translation> translations, Output out) throws IOException {
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION);
+        out.writeByte(stringTable ? STRING_TABLE : 0);
+        Writer writer = new Writer(out, stringTable ? StringTable.of(translations) : null);
+        if (writer.table != null) {
+            writeVarint(out, writer.table.encoded.size());
+            for (byte[] text : writer.table.encoded) {
+                writeVarint(out, text.length);
+                out.write(text);
+            }
+        }
+        writer.node(translations, false);
+        if (translations == null) {
+            return;
+        }
+        for (Translation translation : translations) {
+            if (translation == null) {
+                writeVarint(out, NULL_ELEMENT);
+                continue;
+            }
+            List<Word> words = translation.getWords();
+            writer.node(words, translation.isSuccessful());
+            writer.text(translation.getText());
+            writer.text(translation.getTranslatedText());
+            if (words == null) {
+                continue;
+            }
+            for (Word word : words) {
+                if (word == null) {
+                    writeVarint(out, NULL_ELEMENT);
+                    continue;
+                }
+                List<Candidates> candidates = word.getCandidates();
+                writer.node(candidates, word.isSuccessful());
+                writer.text(word.getText());
+                writer.text(word.getTranslatedText());
+                if (candidates == null) {
+                    continue;
+                }
+                for (Candidates candidate : candidates) {
+                    if (candidate == null) {
+                        writeVarint(out, NULL_ELEMENT);
+                    } else {
+                        writer.text(candidate.getText(), 1);
+                    }
+                }
+            }
+        }
+    }
+
+    public List<Translation> decode(byte[] bytes) throws IOException {
+        return read(ByteBuffer.wrap(bytes));
+    }
+
+    public List<Translation> read(DataInput in) throws IOException {
+        return read(new Input() {
+            @Override
+            public int readByte() throws IOException {
+                return in.readUnsignedByte();
+            }
+
+            @Override
+            public void readFully(byte[] bytes, int length) throws IOException {
+                in.readFully(bytes, 0, length);
+            }
+
+            @Override
+            public void require(int length) {
+            }
+        });
+    }
+
+    /**
+     * Reads from the buffer's position, leaving it just past the encoded results.
+     */
+    public List<Translation> read(ByteBuffer in) throws IOException {
+        return read(new Input() {
+            @Override
+            public int readByte() throws IOException {
+                require(1);
+                return in.get() & 0xFF;
+            }
+
+            @Override
+            public void readFully(byte[] bytes, int length) {
+                in.get(bytes, 0, length);
+            }
+
+            @Override
+            public void require(int length) throws IOException {
+                if (length > in.remaining()) {
+                    throw new IOException("Truncated translation data at offset " + in.position() + ".");
+                }
+            }
+        });
+    }
+
+    private List<Translation> read(Input in) throws IOException {
+        if (in.readByte() != MAGIC) {
+            throw new IOException("Not encoded translation data.");
+        }
+        int version = in.readByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported translation data version[" + version + "].");
+        }
+        Reader reader = new Reader(in);
+        if ((in.readByte() & STRING_TABLE) != 0) {
+            int count = reader.count(readVarint(in));
+            List<String> table = new ArrayList<>(Math.min(count, 1024));
+            for (int i = 0; i < count; i++) {
+                table.add(reader.utf8(readVarint(in)));
+            }
+            reader.table = table;
+        }
+        int node = readVarint(in);
+        int count = children(node);
+        if (count < 0) {
+            return null;
+        }
+        List<Translation> translations = new ArrayList<>(Math.min(count, 1024));
+        for (int t = 0; t < count; t++) {
+            node = readVarint(in);
+            if (node == NULL_ELEMENT) {
+                translations.add(null);
+                continue;
+            }
+            Translation translation = new Translation();
+            translation.setSuccessful((node & SUCCESSFUL) != 0);
+            translation.setText(reader.text());
+            translation.setTranslatedText(reader.text());
+            int wordCount = children(node);
+            if (wordCount >= 0) {
+                List<Word> words = new ArrayList<>(Math.min(wordCount, 1024));
+                for (int w = 0; w < wordCount; w++) {
+                    words.add(reader.word());
+                }
+                translation.setWords(words);
+            }
+            translations.add(translation);
+        }
+        return translations;
+    }
+
+    private static int children(int node) {
+        return (node >>> 1) - 2;
+    }
+
+    private static void writeVarint(Output out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte(value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarint(Input in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in translation data.");
+    }
+
+    private interface Output {
+
+        void writeByte(int b) throws IOException;
+
+        void write(byte[] bytes) throws IOException;
+    }
+
+    private interface Input {
+
+        int readByte() throws IOException;
+
+        void readFully(byte[] bytes, int length) throws IOException;
+
+        /**
+         * Fails early on lengths the input cannot hold, where the input knows its size.
+         */
+        void require(int length) throws IOException;
+    }
+
+    private static final class ArrayOutput implements Output {
+
+        private byte[] bytes = new byte[256];
+
+        private int length;
+
+        @Override
+        public void writeByte(int b) {
+            ensure(1);
+            bytes[length++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b) {
+            ensure(b.length);
+            System.arraycopy(b, 0, bytes, length, b.length);
+            length += b.length;
+        }
+
+        private void ensure(int extra) {
+            if (length + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+            }
+        }
+    }
+
+    /**
+     * Distinct non-null texts of a result in order of first appearance.
+     */
+    private static final class StringTable {
+
+        private final Map<String, Integer> indexes = new HashMap<>();
+
+        private final List<byte[]> encoded = new ArrayList<>();
+
+        static StringTable of(List<Translation> translations) {
+            StringTable table = new StringTable();
+            if (translations == null) {
+                return table;
+            }
+            for (Translation translation : translations) {
+                if (translation == null) {
+                    continue;
+                }
+                table.add(translation.getText());
+                table.add(translation.getTranslatedText());
+                if (translation.getWords() == null) {
+                    continue;
+                }
+                for (Word word : translation.getWords()) {
+                    if (word == null) {
+                        continue;
+                    }
+                    table.add(word.getText());
+                    table.add(word.getTranslatedText());
+                    if (word.getCandidates() == null) {
+                        continue;
+                    }
+                    for (Candidates candidate : word.getCandidates()) {
+                        table.add(candidate == null ? null : candidate.getText());
+                    }
+                }
+            }
+            return table;
+        }
+
+        private void add(String text) {
+            if (text != null && indexes.putIfAbsent(text, encoded.size()) == null) {
+                encoded.add(text.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    private static final class Writer {
+
+        private final Output out;
+
+        private final StringTable table;
+
+        private Writer(Output out, StringTable table) {
+            this.out = out;
+            this.table = table;
+        }
+
+        private void node(List<?> children, boolean successful) throws IOException {
+            writeVarint(out, (children == null ? 1 : children.size() + 2) << 1 | (successful ? SUCCESSFUL : 0));
+        }
+
+        private void text(String text) throws IOException {
+            text(text, 0);
+        }
+
+        /**
+         * @param shift added to the reference, to keep smaller values free for markers
+         */
+        private void text(String text, int shift) throws IOException {
+            if (text == null) {
+                writeVarint(out, shift);
+            } else if (table != null) {
+                writeVarint(out, table.indexes.get(text) + 1 + shift);
+            } else {
+                byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+                writeVarint(out, bytes.length + 1 + shift);
+                out.write(bytes);
+            }
+        }
+    }
+
+    private static final class Reader {
+
+        private final Input in;
+
+        private List<String> table;
+
+        private byte[] scratch = new byte[64];
+
+        private Reader(Input in) {
+            this.in = in;
+        }
+
+        private Word word() throws IOException {
+            int node = readVarint(in);
+            if (node == NULL_ELEMENT) {
+                return null;
+            }
+            Word word = new Word();
+            word.setSuccessful((node & SUCCESSFUL) != 0);
+            word.setText(text());
+            word.setTranslatedText(text());
+            int count = children(node);
+            if (count >= 0) {
+                List<Candidates> candidates = new ArrayList<>(Math.min(count, 1024));
+                for (int c = 0; c < count; c++) {
+                    int ref = readVarint(in);
+                    candidates.add(ref == NULL_ELEMENT ? null : new Candidates(text(ref - 1)));
+                }
+                word.setCandidates(candidates);
+            }
+            return word;
+        }
+
+        private String text() throws IOException {
+            return text(readVarint(in));
+        }
+
+        private String text(int ref) throws IOException {
+            if (ref == 0) {
+                return null;
+            }
+            if (table == null) {
+                return utf8(ref - 1);
+            }
+            if (ref > table.size()) {
+                throw new IOException("String table index[" + (ref - 1) + "] out of range.");
+            }
+            return table.get(ref - 1);
+        }
+
+        private String utf8(int length) throws IOException {
+            count(length);
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            in.readFully(scratch, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        private int count(int count) throws IOException {
+            if (count < 0) {
+                throw new IOException("Negative length in translation data.");
+            }
+            in.require(count);
+            return count;
+        }
+    }
+
+    public static class Builder {
+
+        private boolean stringTable = true;
+
+        /**
+         * Whether to write each distinct text once and refer to it by index. Defaults to true.
+         */
+        public Builder stringTable(boolean stringTable) {
+            this.stringTable = stringTable;
+            return this;
+        }
+
+        public TranslationCodec build() {
+            return new TranslationCodec(this);
+        }
+    }
+}
@@ -16,19 +16,27 @@
 package javajo.sample.codic.model;
 
 import com.owlike.genson.annotation.JsonProperty;
+import net.vvakame.util.jsonpullparser.annotation.JsonKey;
+import net.vvakame.util.jsonpullparser.annotation.JsonModel;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.StringJoiner;
 
+@JsonModel
 public final class Word {
 
+    @JsonKey
     private boolean successful;
 
+    @JsonKey
     private String text;
 
+    @JsonKey("translated_text")
     @JsonProperty("translated_text")
     private String translatedText;
 
+    @JsonKey
     private List<Candidates> candidates;
 
     public boolean isSuccessful() {
@@ -63,6 +71,22 @@ public final class Word {
         this.candidates = candidates;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Word)) return false;
+        Word word = (Word) o;
+        return Objects.equals(successful, word.successful) &&
+                Objects.equals(text, word.text) &&
+                Objects.equals(translatedText, word.translatedText) &&
+                Objects.equals(candidates, word.candidates);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(successful, text, translatedText, candidates);
+    }
+
     @Override
     public String toString() {
         return new StringJoiner(", ", "Word:[", "]")
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic;
+
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import javajo.sample.codic.cache.InMemoryTranslationCache;
+import javajo.sample.codic.model.Translation;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CodicAsyncTest {
+
+    private static final int MAX_IN_FLIGHT = 4;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicInteger maxObserved = new AtomicInteger();
+
+    // the first capped requests wait for each other, so the cap is reached before any of them answers
+    private final CountDownLatch saturated = new CountDownLatch(MAX_IN_FLIGHT);
+
+    private MockWebServer server;
+
+    @Before
+    public void setup() throws IOException {
+        server = TestServers.start(text -> {
+            if (text.equals("error")) {
+                return new MockResponse().setResponseCode(500);
+            }
+            if (text.startsWith("capped")) {
+                maxObserved.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                saturated.countDown();
+                saturated.await(5, TimeUnit.SECONDS);
+                inFlight.decrementAndGet();
+            }
+            return TestServers.sample();
+        });
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void inFlightRequestsAreCapped() {
+        HttpTransport transport = new HttpTransport.Builder()
+                .maxInFlight(MAX_IN_FLIGHT)
+                .executor(CodicExecutors.virtualThreadsOrPlatformThreads())
+                .build();
+        Codic codic = TestServers.codic(server, transport);
+
+        List<CompletableFuture<List<Translation>>> futures = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            futures.add(codic.translateAsync("capped" + i));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+
+        for (CompletableFuture<List<Translation>> future : futures) {
+            assertThat(future.join().get(0).getTranslatedText()).isEqualTo("acquisition");
+        }
+        assertThat(saturated.getCount()).isZero();
+        assertThat(maxObserved.get()).isEqualTo(MAX_IN_FLIGHT);
+        assertThat(server.getRequestCount()).isEqualTo(40);
+    }
+
+    @Test
+    public void translateAllSendsEachDistinctTextOnce() {
+        Codic codic = TestServers.codic(server, new HttpTransport.Builder().maxInFlight(MAX_IN_FLIGHT).build());
+
+        Map<String, List<Translation>> results = codic.translateAll(Arrays.asList("取得", "削除", "取得", "更新", "削除"));
+
+        assertThat(results.keySet()).containsExactly("取得", "削除", "更新");
+        assertThat(server.getRequestCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void cachedTranslationSkipsNetwork() {
+        InMemoryTranslationCache cache = new InMemoryTranslationCache.Builder().build();
+        Codic codic = TestServers.builder(server).cache(cache).build();
+
+        codic.translate("取得");
+        List<Translation> second = codic.translate("取得");
+
+        assertThat(second.get(0).getTranslatedText()).isEqualTo("acquisition");
+        assertThat(server.getRequestCount()).isEqualTo(1);
+        assertThat(cache.stats().getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void nonOkStatusCompletesExceptionally() throws InterruptedException {
+        Codic codic = TestServers.codic(server, new HttpTransport.Builder().build());
+        try {
+            codic.translateAsync("error").get();
+            throw new AssertionError("expected failure");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause())
+                    .isInstanceOf(CodicException.class)
+                    .hasMessageContaining("500");
+        }
+    }
+
+    @Test
+    public void translateCandidatesReturnsFlatTexts() {
+        Codic codic = TestServers.codic(server, new HttpTransport.Builder().build());
+        assertThat(codic.translateCandidates("取得")).containsExactly("acquisition", "get", "acquired", "fetch");
+
+        InMemoryTranslationCache cache = new InMemoryTranslationCache.Builder().build();
+        Codic cached = TestServers.builder(server).cache(cache).build();
+        assertThat(cached.translateCandidates("取得")).containsExactly("acquisition", "get", "acquired", "fetch");
+        assertThat(cache.get("取得")).isNotNull();
+        assertThat(server.getRequestCount()).isEqualTo(2);
+    }
+}
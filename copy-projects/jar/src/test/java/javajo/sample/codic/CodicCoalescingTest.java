@@ -0,0 +1,118 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic;
+
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import javajo.sample.codic.cache.CacheStats;
+import javajo.sample.codic.cache.TranslationCache;
+import javajo.sample.codic.model.Translation;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CodicCoalescingTest {
+
+    private final CountDownLatch held = new CountDownLatch(1);
+
+    private MockWebServer server;
+
+    @Before
+    public void setup() throws IOException {
+        server = TestServers.start(text -> {
+            if (text.equals("hold")) {
+                held.await();
+            }
+            return TestServers.sample();
+        });
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        held.countDown();
+        server.shutdown();
+    }
+
+    @Test
+    public void concurrentCallsForSameTextShareOneRequest() {
+        Codic codic = TestServers.codic(server, new HttpTransport.Builder().build());
+        List<CompletableFuture<List<Translation>>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(codic.translateAsync("hold"));
+        }
+        futures.get(0).cancel(true);
+        held.countDown();
+
+        for (CompletableFuture<List<Translation>> future : futures.subList(1, futures.size())) {
+            assertThat(future.join().get(0).getTranslatedText()).isEqualTo("acquisition");
+        }
+        assertThat(server.getRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void callAfterEveryWaiterCancelledStartsANewFlight() {
+        Codic codic = TestServers.codic(server, new HttpTransport.Builder().build());
+        CompletableFuture<List<Translation>> first = codic.translateAsync("hold");
+        CompletableFuture<List<Translation>> second = codic.translateAsync("hold");
+        first.cancel(true);
+        second.cancel(true);
+
+        CompletableFuture<List<Translation>> third = codic.translateAsync("hold");
+        held.countDown();
+
+        assertThat(third.join().get(0).getTranslatedText()).isEqualTo("acquisition");
+        assertThat(second.isCancelled()).isTrue();
+    }
+
+    @Test
+    public void failingCacheDoesNotStrandSharedCalls() {
+        TranslationCache broken = new TranslationCache() {
+            @Override
+            public List<Translation> get(String text) {
+                return null;
+            }
+
+            @Override
+            public void put(String text, List<Translation> translations) {
+                throw new IllegalStateException("disk full");
+            }
+
+            @Override
+            public CacheStats stats() {
+                return new CacheStats(0L, 0L, 0L, 0L);
+            }
+        };
+        Codic codic = TestServers.builder(server).cache(broken).build();
+        CompletableFuture<List<Translation>> first = codic.translateAsync("hold");
+        CompletableFuture<List<Translation>> second = codic.translateAsync("hold");
+        held.countDown();
+
+        assertThat(first.join().get(0).getTranslatedText()).isEqualTo("acquisition");
+        assertThat(second.join()).isEqualTo(first.join());
+        assertThat(server.getRequestCount()).isEqualTo(1);
+        assertThat(codic.getMetrics().snapshot().getCacheErrorCount()).isEqualTo(1L);
+        // the failed flight is gone, so the next call asks again
+        assertThat(codic.translate("hold").get(0).getTranslatedText()).isEqualTo("acquisition");
+        assertThat(server.getRequestCount()).isEqualTo(2);
+    }
+}
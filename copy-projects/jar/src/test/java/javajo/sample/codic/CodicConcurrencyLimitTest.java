@@ -0,0 +1,108 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic;
+
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import javajo.sample.codic.decode.TranslationDecoder;
+import javajo.sample.codic.limit.AimdConcurrencyLimit;
+import javajo.sample.codic.model.Translation;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CodicConcurrencyLimitTest {
+
+    private final CountDownLatch held = new CountDownLatch(1);
+
+    private MockWebServer server;
+
+    @Before
+    public void setup() throws IOException {
+        server = TestServers.start(text -> {
+            if (text.startsWith("hold")) {
+                held.await();
+            }
+            return TestServers.sample();
+        });
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        held.countDown();
+        server.shutdown();
+    }
+
+    @Test
+    public void cancellingQueuedCallsReturnsTheirSlots() {
+        AimdConcurrencyLimit limit = new AimdConcurrencyLimit.Builder().initialLimit(1).maxLimit(1).build();
+        Codic codic = TestServers.builder(server).concurrencyLimit(limit).build();
+        List<CompletableFuture<List<Translation>>> futures = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            futures.add(codic.translateAsync("hold" + i));
+        }
+
+        // queued calls first, so the slot freed by the held one only meets cancelled waiters
+        for (int i = futures.size() - 1; i >= 0; i--) {
+            futures.get(i).cancel(true);
+        }
+        held.countDown();
+
+        assertThat(codic.translate("取得").get(0).getTranslatedText()).isEqualTo("acquisition");
+        assertThat(limit.getWaiting()).isZero();
+        assertThat(limit.getInFlight()).isZero();
+        // the held call and the last translate
+        assertThat(server.getRequestCount()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    public void decodeFailuresDoNotShrinkTheLimit() {
+        AimdConcurrencyLimit limit = new AimdConcurrencyLimit.Builder().initialLimit(8).maxLimit(8).build();
+        Codic codic = TestServers.builder(server)
+                .concurrencyLimit(limit)
+                .decoder(new TranslationDecoder() {
+                    @Override
+                    public String name() {
+                        return "broken";
+                    }
+
+                    @Override
+                    public List<Translation> decode(InputStream in) throws IOException {
+                        throw new IOException("unexpected end of body");
+                    }
+                })
+                .build();
+
+        for (int i = 0; i < 3; i++) {
+            try {
+                codic.translate("取得" + i);
+                throw new AssertionError("expected failure");
+            } catch (CodicException expected) {
+            }
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(8);
+        assertThat(limit.getInFlight()).isZero();
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic;
+
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import javajo.sample.codic.model.Translation;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CodicHedgingTest {
+
+    private final AtomicInteger slowRequests = new AtomicInteger();
+
+    private final CountDownLatch held = new CountDownLatch(1);
+
+    private MockWebServer server;
+
+    @Before
+    public void setup() throws IOException {
+        server = TestServers.start(text -> {
+            if (text.equals("error")) {
+                return new MockResponse().setResponseCode(500);
+            }
+            // only the first attempt at "slow" is held, so its hedge answers
+            if (text.equals("hold") || text.equals("slow") && slowRequests.getAndIncrement() == 0) {
+                held.await();
+            }
+            return TestServers.sample();
+        });
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        held.countDown();
+        server.shutdown();
+    }
+
+    @Test
+    public void hedgeAnswersWhenPrimaryIsSlow() {
+        HedgingPolicy hedging = new HedgingPolicy.Builder()
+                .initialDelay(50, TimeUnit.MILLISECONDS)
+                .budgetRatio(1.0)
+                .build();
+        Codic codic = TestServers.builder(server).hedging(hedging).build();
+
+        List<Translation> translations = codic.translate("slow");
+
+        assertThat(translations.get(0).getTranslatedText()).isEqualTo("acquisition");
+        assertThat(hedging.getHedgeCount()).isEqualTo(1);
+        assertThat(hedging.getHedgeWinCount()).isEqualTo(1);
+        // the losing primary was cancelled, and sampled, before the answer was handed over
+        assertThat(hedging.sampleCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void primaryLatencyIsRecordedWhenItSucceedsOrIsCancelled() {
+        HedgingPolicy hedging = new HedgingPolicy.Builder()
+                .initialDelay(10, TimeUnit.SECONDS)
+                .build();
+        Codic codic = TestServers.builder(server).hedging(hedging).coalesce(false).build();
+
+        codic.translate("取得");
+        assertThat(hedging.sampleCount()).isEqualTo(1);
+        codic.translateAsync("hold").cancel(true);
+
+        assertThat(hedging.sampleCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void primaryFailureBeforeTheHedgeFailsTheCall() {
+        HedgingPolicy hedging = new HedgingPolicy.Builder()
+                .initialDelay(10, TimeUnit.SECONDS)
+                .build();
+        Codic codic = TestServers.builder(server).hedging(hedging).build();
+
+        try {
+            codic.translate("error");
+            throw new AssertionError("expected failure");
+        } catch (CodicException expected) {
+            assertThat(expected.getStatus()).isEqualTo(500);
+        }
+
+        assertThat(hedging.sampleCount()).isZero();
+        assertThat(hedging.getHedgeCount()).isZero();
+        assertThat(server.getRequestCount()).isEqualTo(1);
+    }
+}
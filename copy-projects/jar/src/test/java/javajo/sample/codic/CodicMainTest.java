@@ -0,0 +1,238 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic;
+
+import com.squareup.okhttp.HttpUrl;
+import com.squareup.okhttp.mockwebserver.Dispatcher;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CodicMainTest {
+
+    private final CountDownLatch held = new CountDownLatch(1);
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    private boolean outClosed;
+
+    private MockWebServer server;
+
+    @Before
+    public void setup() throws IOException {
+        server = TestServers.newServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                String text = HttpUrl.parse("http://localhost" + request.getPath()).queryParameter("text");
+                if (text.equals("error")) {
+                    return new MockResponse().setResponseCode(500);
+                }
+                if (text.equals("held")) {
+                    held.await();
+                } else if (text.equals("slow")) {
+                    Thread.sleep(200L);
+                }
+                return new MockResponse().setBody(response(text));
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        held.countDown();
+        server.shutdown();
+    }
+
+    private static String json(String value) {
+        return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+
+    private static String response(String text) {
+        return "[{\"successful\":true,\"text\":" + json(text) + ",\"translated_text\":" + json(text + "_1")
+                + ",\"words\":[{\"successful\":true,\"text\":" + json(text) + ",\"translated_text\":" + json(text + "_1")
+                + ",\"candidates\":[{\"text\":" + json(text + "_1") + "},{\"text\":" + json(text + "_2") + "}]}]}]";
+    }
+
+    private int run(InputStream in, String... args) {
+        Codic.Builder builder = new Codic.Builder()
+                .accessToken("test-token")
+                .entry(server.url(TestServers.TRANSLATE_PATH));
+        PrintStream stdout = new PrintStream(out) {
+            @Override
+            public void close() {
+                outClosed = true;
+            }
+        };
+        String[] utf8 = new String[args.length + 1];
+        utf8[0] = "--encoding=UTF-8";
+        System.arraycopy(args, 0, utf8, 1, args.length);
+        return CodicMain.run(builder, null, in, stdout, new PrintStream(err), utf8);
+    }
+
+    private int run(String... args) {
+        return run(new ByteArrayInputStream(new byte[0]), args);
+    }
+
+    private List<String> outLines() {
+        return Arrays.asList(new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n"));
+    }
+
+    private String errText() {
+        return new String(err.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void resultsFollowInputOrder() {
+        assertThat(run("-p", "4", "slow", "取得", "削除")).isZero();
+
+        assertThat(outLines()).containsExactly(
+                "slow", "    slow_1", "    slow_2",
+                "取得", "    取得_1", "    取得_2",
+                "削除", "    削除_1", "    削除_2");
+        assertThat(errText()).isEmpty();
+        assertThat(outClosed).isFalse();
+    }
+
+    @Test
+    public void repeatedKeywordsInWindowShareOneRequest() {
+        run("取得", "取得", "削除", "取得");
+
+        assertThat(outLines()).hasSize(12);
+        assertThat(server.getRequestCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void stdinLinesFollowArguments() {
+        run(new ByteArrayInputStream("削除\n\n  更新  \n".getBytes(StandardCharsets.UTF_8)), "取得", "-");
+
+        assertThat(outLines()).containsExactly(
+                "取得", "    取得_1", "    取得_2",
+                "削除", "    削除_1", "    削除_2",
+                "更新", "    更新_1", "    更新_2");
+    }
+
+    @Test
+    public void ndjsonWritesOneEscapedObjectPerLine() {
+        int status = run(new ByteArrayInputStream("say \"hi\"\\\nerror\n".getBytes(StandardCharsets.UTF_8)), "--ndjson", "--stdin");
+
+        List<String> lines = outLines();
+        assertThat(lines).hasSize(2);
+        assertThat(lines.get(0)).isEqualTo("{\"text\":\"say \\\"hi\\\"\\\\\",\"candidates\":[\"say \\\"hi\\\"\\\\_1\",\"say \\\"hi\\\"\\\\_2\"]}");
+        assertThat(lines.get(1)).startsWith("{\"text\":\"error\",\"error\":\"").contains("500");
+        assertThat(errText()).isEmpty();
+        assertThat(status).isEqualTo(1);
+    }
+
+    @Test
+    public void finishedResultsAreFlushedWhileLaterOnesWait() throws InterruptedException {
+        Thread main = new Thread(() -> run("取得", "held"));
+        main.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (out.size() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10L);
+        }
+        assertThat(outLines()).containsExactly("取得", "    取得_1", "    取得_2");
+
+        held.countDown();
+        main.join(5_000L);
+        assertThat(outLines()).hasSize(6);
+    }
+
+    @Test
+    public void missingOptionValueShowsUsage() {
+        assertThat(run("-p")).isEqualTo(1);
+        assertThat(errText()).contains("Option -p requires a value.").contains("codic");
+        assertThat(server.getRequestCount()).isZero();
+    }
+
+    @Test
+    public void encodingOptionSelectsOutputCharset() {
+        run("--encoding=Shift_JIS", "取得");
+
+        assertThat(new String(out.toByteArray(), Charset.forName("Shift_JIS")).split("\n"))
+                .containsExactly("取得", "    取得_1", "    取得_2");
+    }
+
+    @Test
+    public void unknownEncodingShowsUsage() {
+        assertThat(run("--encoding=no-such-charset", "取得")).isEqualTo(1);
+        assertThat(errText()).contains("Encoding no-such-charset is not supported.");
+        assertThat(server.getRequestCount()).isZero();
+    }
+
+    @Test
+    public void invalidParallelismFails() {
+        assertThat(run("-p", "abc", "取得")).isEqualTo(1);
+        assertThat(errText()).contains("Parallelism must be a number but was abc.");
+        assertThat(server.getRequestCount()).isZero();
+    }
+
+    @Test
+    public void flushFailureWhileWaitingForInputIsAWriteError() {
+        OutputStream broken = new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void flush() throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+        Codic.Builder builder = new Codic.Builder()
+                .accessToken("test-token")
+                .entry(server.url(TestServers.TRANSLATE_PATH));
+
+        int status = CodicMain.run(builder, null, new ByteArrayInputStream("削除\n".getBytes(StandardCharsets.UTF_8)),
+                broken, new PrintStream(err), "取得", "-");
+
+        assertThat(status).isEqualTo(1);
+        assertThat(errText()).startsWith("Exception in writing translations: Broken pipe");
+    }
+
+    @Test
+    public void failuresAreReportedByKind() {
+        assertThat(run("--file=" + System.getProperty("java.io.tmpdir") + "/no-such-keywords.txt")).isEqualTo(1);
+        assertThat(errText()).startsWith("Exception in reading keywords[");
+
+        err.reset();
+        assertThat(run("取得", "error")).isEqualTo(1);
+        assertThat(outLines()).containsExactly("取得", "    取得_1", "    取得_2");
+        assertThat(errText()).startsWith("Exception in translating[error]: ");
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic;
+
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import javajo.sample.codic.cache.NegativeCache;
+import javajo.sample.codic.model.Translation;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CodicNegativeCacheTest {
+
+    private final CountDownLatch held = new CountDownLatch(1);
+
+    private MockWebServer server;
+
+    @Before
+    public void setup() throws IOException {
+        server = TestServers.start(text -> {
+            if (text.equals("junk")) {
+                return new MockResponse().setBody("[{\"successful\":true,\"text\":\"junk\",\"translated_text\":\"\",\"words\":[]}]");
+            }
+            if (text.equals("flaky")) {
+                return new MockResponse().setBody("[{\"successful\":false,\"text\":\"flaky\",\"translated_text\":\"\",\"words\":[]}]");
+            }
+            if (text.equals("hold")) {
+                held.await();
+            }
+            return TestServers.sample();
+        });
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        held.countDown();
+        server.shutdown();
+    }
+
+    @Test
+    public void negativeCacheAnswersUntranslatableTextsLocally() {
+        NegativeCache negativeCache = new NegativeCache.Builder().verifyEvery(3).build();
+        Codic codic = TestServers.builder(server).negativeCache(negativeCache).build();
+
+        assertThat(codic.translate("junk").get(0).getWords()).isEmpty();
+        for (int i = 0; i < 6; i++) {
+            List<Translation> translations = codic.translate("junk");
+            assertThat(translations.get(0).isSuccessful()).isTrue();
+            assertThat(translations.get(0).getWords()).isEmpty();
+        }
+        assertThat(codic.translateCandidates("junk")).isEmpty();
+        codic.translate("取得");
+
+        // first call, two sampled verifications, and the translatable text
+        assertThat(server.getRequestCount()).isEqualTo(4);
+        assertThat(negativeCache.getHitCount()).isEqualTo(5L);
+        assertThat(negativeCache.getVerificationCount()).isEqualTo(2L);
+        assertThat(negativeCache.measuredFalsePositiveRate()).isZero();
+        assertThat(negativeCache.mightContain("取得")).isFalse();
+    }
+
+    @Test
+    public void unsuccessfulAnswersAreNotRemembered() {
+        NegativeCache negativeCache = new NegativeCache.Builder().build();
+        Codic codic = TestServers.builder(server).negativeCache(negativeCache).build();
+
+        assertThat(codic.translate("flaky").get(0).isSuccessful()).isFalse();
+        assertThat(codic.translate("flaky").get(0).isSuccessful()).isFalse();
+
+        assertThat(negativeCache.mightContain("flaky")).isFalse();
+        assertThat(server.getRequestCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void verificationJoiningAnotherCallIsRecorded() {
+        NegativeCache negativeCache = new NegativeCache.Builder().verifyEvery(1).build();
+        Codic codic = TestServers.builder(server).negativeCache(negativeCache).build();
+        CompletableFuture<List<Translation>> first = codic.translateAsync("hold");
+        negativeCache.put("hold");
+        CompletableFuture<List<Translation>> verification = codic.translateAsync("hold");
+        held.countDown();
+
+        assertThat(verification.join()).isEqualTo(first.join());
+        assertThat(server.getRequestCount()).isEqualTo(1);
+        assertThat(negativeCache.getVerificationCount()).isEqualTo(1L);
+        assertThat(negativeCache.getFalsePositiveCount()).isEqualTo(1L);
+    }
+}
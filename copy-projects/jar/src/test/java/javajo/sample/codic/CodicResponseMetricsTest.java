@@ -0,0 +1,97 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic;
+
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import javajo.sample.codic.decode.TranslationDecoder;
+import javajo.sample.codic.metrics.CodicMetrics;
+import javajo.sample.codic.metrics.MetricsSnapshot;
+import javajo.sample.codic.model.Translation;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CodicResponseMetricsTest {
+
+    private MockWebServer server;
+
+    @Before
+    public void setup() throws IOException {
+        server = TestServers.start(text -> text.equals("error")
+                ? new MockResponse().setResponseCode(500)
+                : TestServers.sample());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void metricsRecordPhasesAndErrors() {
+        Codic codic = TestServers.codic(server, new HttpTransport.Builder().build());
+        codic.translate("取得");
+        try {
+            codic.translate("error");
+            throw new AssertionError("expected failure");
+        } catch (CodicException expected) {
+        }
+
+        MetricsSnapshot snapshot = codic.getMetrics().snapshot();
+        assertThat(snapshot.getRequestCount()).isEqualTo(2L);
+        assertThat(snapshot.getErrorCount()).isEqualTo(1L);
+        assertThat(snapshot.getErrorsByStatus()).containsEntry("500", 1L);
+        assertThat(snapshot.getBytesReceived()).isEqualTo((long) TestServers.sampleResponse().getBytes(StandardCharsets.UTF_8).length);
+        assertThat(snapshot.getTotalLatency().getCount()).isEqualTo(1L);
+        assertThat(snapshot.getTimeToFirstByteLatency().getCount()).isEqualTo(1L);
+        assertThat(snapshot.getTotalLatency().getMaxMicros())
+                .isGreaterThanOrEqualTo(snapshot.getTimeToFirstByteLatency().getMaxMicros());
+    }
+
+    @Test
+    public void runtimeDecodeFailuresAreCountedAndWrapped() {
+        Codic codic = TestServers.builder(server)
+                .decoder(new TranslationDecoder() {
+                    @Override
+                    public String name() {
+                        return "broken";
+                    }
+
+                    @Override
+                    public List<Translation> decode(InputStream in) {
+                        throw new IllegalStateException("unexpected token");
+                    }
+                })
+                .build();
+
+        try {
+            codic.translate("取得");
+            throw new AssertionError("expected failure");
+        } catch (CodicException e) {
+            assertThat(e.getCause()).isInstanceOf(IllegalStateException.class);
+        }
+
+        assertThat(codic.getMetrics().snapshot().getErrorsByStatus()).containsEntry(CodicMetrics.DECODE_ERROR, 1L);
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic;
+
+import com.squareup.okhttp.mockwebserver.Dispatcher;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+import javajo.sample.codic.model.Translation;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HttpTransportTest {
+
+    private static final int CALLS = 200;
+
+    private MockWebServer server;
+
+    @Before
+    public void setup() throws IOException {
+        String json = TestServers.sampleResponse();
+        server = TestServers.newServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse().setBody(json);
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    private Codic codic(HttpTransport transport) {
+        return TestServers.codic(server, transport);
+    }
+
+    @Test
+    public void sharedTransportReusesOneConnection() throws InterruptedException {
+        HttpTransport transport = new HttpTransport.Builder().build();
+        Codic codic = codic(transport);
+
+        for (int i = 0; i < CALLS; i++) {
+            List<Translation> list = codic.translate("取得");
+            assertThat(list.get(0).getTranslatedText()).isEqualTo("acquisition");
+        }
+        assertThat(transport.getConnectionCount()).isEqualTo(1);
+        int reused = 0;
+        for (int i = 0; i < CALLS; i++) {
+            if (server.takeRequest().getSequenceNumber() > 0) reused++;
+        }
+        assertThat(reused).isEqualTo(CALLS - 1);
+    }
+
+    @Test
+    public void transportPerCallOpensConnectionEveryTime() throws InterruptedException {
+        for (int i = 0; i < CALLS; i++) {
+            HttpTransport transport = new HttpTransport.Builder().build();
+            codic(transport).translate("取得");
+            transport.evictAll();
+        }
+        int fresh = 0;
+        for (int i = 0; i < CALLS; i++) {
+            if (server.takeRequest().getSequenceNumber() == 0) fresh++;
+        }
+        assertThat(fresh).isEqualTo(CALLS);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic;
+
+import com.squareup.okhttp.HttpUrl;
+import com.squareup.okhttp.mockwebserver.Dispatcher;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+import javajo.sample.codic.load.NoDelayServerSocketFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.joining;
+
+final class TestServers {
+
+    static final String TRANSLATE_PATH = "/v1/engine/translate.json";
+
+    private TestServers() {}
+
+    static String sampleResponse() {
+        InputStream input = TestServers.class.getClassLoader().getResourceAsStream("sample-response.json");
+        try (Stream<String> st = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)).lines()) {
+            return st.collect(joining());
+        }
+    }
+
+    static MockWebServer newServer() {
+        MockWebServer server = new MockWebServer();
+        server.setServerSocketFactory(new NoDelayServerSocketFactory());
+        return server;
+    }
+
+    /**
+     * Answers a translate call from its {@code text} parameter.
+     */
+    interface Responder {
+
+        MockResponse respond(String text) throws InterruptedException;
+    }
+
+    static MockWebServer start(Responder responder) throws IOException {
+        MockWebServer server = newServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                return responder.respond(HttpUrl.parse("http://localhost" + request.getPath()).queryParameter("text"));
+            }
+        });
+        server.start();
+        return server;
+    }
+
+    static MockResponse sample() {
+        return new MockResponse().setBody(sampleResponse());
+    }
+
+    /**
+     * A client of {@code server} with its own transport, to be completed by the test.
+     */
+    static Codic.Builder builder(MockWebServer server) {
+        return new Codic.Builder()
+                .accessToken("test-token")
+                .transport(new HttpTransport.Builder().build())
+                .entry(server.url(TRANSLATE_PATH));
+    }
+
+    static Codic codic(MockWebServer server, HttpTransport transport) {
+        return new Codic.Builder()
+                .accessToken("test-token")
+                .transport(transport)
+                .entry(server.url(TRANSLATE_PATH))
+                .build();
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.cache;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FrequencySketchTest {
+
+    @Test
+    public void countersSaturateAtFifteen() {
+        FrequencySketch sketch = new FrequencySketch(1024);
+        for (int i = 0; i < 20; i++) {
+            sketch.increment("取得");
+        }
+
+        assertThat(sketch.frequency("取得")).isEqualTo(15);
+        assertThat(sketch.frequency("削除")).isZero();
+    }
+
+    @Test
+    public void countersAreHalvedAfterTheSamplePeriod() {
+        FrequencySketch sketch = new FrequencySketch(16);
+        for (int i = 0; i < 8; i++) {
+            sketch.increment("hot");
+        }
+        // the sample period is ten additions per counter of a row, forty per table slot
+        for (int i = 0; sketch.frequency("hot") >= 8 && i < 40 * 16; i++) {
+            sketch.increment("cold" + i);
+        }
+
+        assertThat(sketch.frequency("hot")).isBetween(4, 7);
+    }
+
+    @Test
+    public void tableHoldsSixteenCountersPerLong() {
+        assertThat(new FrequencySketch(1).tableLength()).isEqualTo(16);
+        assertThat(new FrequencySketch(1000).tableLength()).isEqualTo(1024);
+        assertThat(new FrequencySketch(10_000_000).tableLength()).isEqualTo(1 << 24);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.cache;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static javajo.sample.codic.cache.TestTranslations.translation;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InMemoryTranslationCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    public void hitAndMissAreCounted() {
+        InMemoryTranslationCache cache = new InMemoryTranslationCache.Builder().build();
+        assertThat(cache.get("取得")).isNull();
+        cache.put("取得", translation("取得", "取得-translated"));
+        assertThat(cache.get("取得").get(0).getTranslatedText()).isEqualTo("取得-translated");
+
+        CacheStats stats = cache.stats();
+        assertThat(stats.getHitCount()).isEqualTo(1);
+        assertThat(stats.getMissCount()).isEqualTo(1);
+        assertThat(stats.getHitRate()).isEqualTo(0.5);
+    }
+
+    @Test
+    public void entriesExpireAfterWrite() {
+        InMemoryTranslationCache cache = new InMemoryTranslationCache.Builder()
+                .expireAfterWrite(1, TimeUnit.MINUTES)
+                .ticker(now::get)
+                .build();
+        cache.put("取得", translation("取得", "取得-translated"));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(59));
+        assertThat(cache.get("取得")).isNotNull();
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertThat(cache.get("取得")).isNull();
+        assertThat(cache.stats().getEvictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void entriesKeepTheirOwnTimeToLive() {
+        InMemoryTranslationCache cache = new InMemoryTranslationCache.Builder()
+                .expireAfterWrite(1, TimeUnit.MINUTES)
+                .ticker(now::get)
+                .build();
+        cache.put("取得", translation("取得", "acquisition"));
+        cache.put("削除", translation("削除", "delete"), 10, TimeUnit.SECONDS);
+        cache.put("更新", translation("更新", "update"), 1, TimeUnit.HOURS);
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertThat(cache.get("削除")).isNull();
+        assertThat(cache.get("取得")).isNotNull();
+        now.addAndGet(TimeUnit.SECONDS.toNanos(50));
+        assertThat(cache.get("取得")).isNull();
+        assertThat(cache.get("更新")).isNotNull();
+    }
+
+    @Test
+    public void sizeIsBounded() {
+        InMemoryTranslationCache cache = new InMemoryTranslationCache.Builder().maximumSize(100).build();
+        for (int i = 0; i < 1000; i++) {
+            String key = "key" + i;
+            cache.get(key);
+            cache.put(key, translation(key, key + "-translated"));
+        }
+        assertThat(cache.size()).isEqualTo(100);
+    }
+
+    @Test
+    public void hotEntriesSurviveScan() {
+        InMemoryTranslationCache cache = new InMemoryTranslationCache.Builder().maximumSize(10).build();
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 10; i++) {
+                String key = "hot" + i;
+                if (cache.get(key) == null) {
+                    cache.put(key, translation(key, key + "-translated"));
+                }
+            }
+        }
+        for (int i = 0; i < 1000; i++) {
+            String key = "scan" + i;
+            if (cache.get(key) == null) {
+                cache.put(key, translation(key, key + "-translated"));
+            }
+            assertThat(cache.get("hot" + (i % 10))).isNotNull();
+        }
+        for (int i = 0; i < 10; i++) {
+            assertThat(cache.get("hot" + i)).isNotNull();
+        }
+        assertThat(cache.stats().getRejectionCount()).isEqualTo(1000);
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.cache;
+
+import javajo.sample.codic.model.Candidates;
+import javajo.sample.codic.model.Translation;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static javajo.sample.codic.cache.TestTranslations.translation;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MappedTranslationStoreTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private Path file() {
+        return folder.getRoot().toPath().resolve("translations.db");
+    }
+
+    @Test
+    public void entriesSurviveReopen() throws IOException {
+        try (MappedTranslationStore store = new MappedTranslationStore.Builder(file()).open()) {
+            store.put("取得", translation("取得", "acquisition", "get", "acquired", "fetch"));
+            store.put("削除", translation("削除", "delete", "remove"));
+        }
+        try (MappedTranslationStore store = new MappedTranslationStore.Builder(file()).open()) {
+            assertThat(store.size()).isEqualTo(2);
+            Translation translation = store.get("取得").get(0);
+            assertThat(translation.isSuccessful()).isTrue();
+            assertThat(translation.getTranslatedText()).isEqualTo("acquisition");
+            assertThat(translation.getWords().get(0).getCandidates())
+                    .containsExactly(new Candidates("acquisition"), new Candidates("get"), new Candidates("acquired"), new Candidates("fetch"));
+            assertThat(store.get("更新")).isNull();
+            assertThat(store.stats().getHitCount()).isEqualTo(1);
+            assertThat(store.stats().getMissCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void latestWriteWins() throws IOException {
+        try (MappedTranslationStore store = new MappedTranslationStore.Builder(file()).open()) {
+            store.put("取得", translation("取得", "get"));
+            store.put("取得", translation("取得", "acquisition"));
+            assertThat(store.size()).isEqualTo(1);
+            assertThat(store.get("取得").get(0).getTranslatedText()).isEqualTo("acquisition");
+        }
+    }
+
+    @Test
+    public void fileGrowsBeyondInitialSize() throws IOException {
+        try (MappedTranslationStore store = new MappedTranslationStore.Builder(file()).initialSize(64).open()) {
+            for (int i = 0; i < 1000; i++) {
+                store.put("key" + i, translation("key" + i, "value" + i));
+            }
+            assertThat(store.size()).isEqualTo(1000);
+            assertThat(store.get("key999").get(0).getTranslatedText()).isEqualTo("value999");
+        }
+    }
+
+    @Test
+    public void recordsFromAnotherWriterAreVisible() throws IOException {
+        try (MappedTranslationStore first = new MappedTranslationStore.Builder(file()).open();
+             MappedTranslationStore second = new MappedTranslationStore.Builder(file()).open()) {
+            first.put("取得", translation("取得", "acquisition"));
+            assertThat(second.get("取得").get(0).getTranslatedText()).isEqualTo("acquisition");
+        }
+    }
+
+    @Test
+    public void oversizedRecordsAreRejected() throws IOException {
+        String[] candidates = new String[100];
+        for (int i = 0; i < candidates.length; i++) {
+            candidates[i] = "value" + i;
+        }
+        try (MappedTranslationStore store = new MappedTranslationStore.Builder(file()).initialSize(64).maximumFileSize(1024).open()) {
+            store.put("key", translation("key", candidates));
+            assertThat(store.get("key")).isNull();
+            assertThat(store.stats().getRejectionCount()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void fullStoreIsCompactedKeepingNewestRecords() throws IOException {
+        try (MappedTranslationStore store = new MappedTranslationStore.Builder(file()).initialSize(64).maximumFileSize(4096).open()) {
+            for (int i = 0; i < 1000; i++) {
+                store.put("key" + i, translation("key" + i, "value" + i));
+                store.put("hot", translation("hot", "value" + i));
+            }
+            assertThat(store.stats().getRejectionCount()).isZero();
+            assertThat(store.stats().getEvictionCount()).isGreaterThan(0);
+            assertThat(store.get("key999").get(0).getTranslatedText()).isEqualTo("value999");
+            assertThat(store.get("hot").get(0).getTranslatedText()).isEqualTo("value999");
+            assertThat(store.get("key0")).isNull();
+        }
+        assertThat(Files.size(file())).isLessThanOrEqualTo(4096L);
+    }
+
+    @Test
+    public void compactionIsFollowedByOtherWriters() throws IOException {
+        try (MappedTranslationStore first = new MappedTranslationStore.Builder(file()).initialSize(64).maximumFileSize(4096).open();
+             MappedTranslationStore second = new MappedTranslationStore.Builder(file()).initialSize(64).maximumFileSize(4096).open()) {
+            for (int i = 0; i < 200; i++) {
+                first.put("key" + i, translation("key" + i, "value" + i));
+            }
+            assertThat(second.get("key199").get(0).getTranslatedText()).isEqualTo("value199");
+            second.put("削除", translation("削除", "delete"));
+            assertThat(first.get("削除").get(0).getTranslatedText()).isEqualTo("delete");
+        }
+    }
+
+    @Test
+    public void otherVersionIsReplacedWithoutTruncation() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(64);
+        header.putInt(0x43444943).putInt(1).putLong(16L);
+        Files.write(file(), header.array());
+        try (FileChannel old = FileChannel.open(file(), StandardOpenOption.READ)) {
+            try (MappedTranslationStore store = new MappedTranslationStore.Builder(file()).open()) {
+                store.put("取得", translation("取得", "acquisition"));
+                assertThat(store.get("取得").get(0).getTranslatedText()).isEqualTo("acquisition");
+            }
+            // processes still holding the old file see it intact, marked as superseded
+            ByteBuffer end = ByteBuffer.allocate(8);
+            old.read(end, 8);
+            assertThat(old.size()).isEqualTo(64L);
+            assertThat(end.getLong(0)).isEqualTo(-1L);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.cache;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NegativeCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    public void addedTextsAreAlwaysFound() {
+        NegativeCache cache = new NegativeCache.Builder().expectedInsertions(1_000).build();
+        for (int i = 0; i < 1_000; i++) {
+            cache.put("junk" + i);
+        }
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(cache.mightContain("junk" + i)).isTrue();
+        }
+        assertThat(cache.size()).isEqualTo(1_000L);
+    }
+
+    @Test
+    public void falsePositiveRateStaysNearTarget() {
+        NegativeCache cache = new NegativeCache.Builder()
+                .expectedInsertions(10_000)
+                .falsePositiveRate(0.01)
+                .build();
+        for (int i = 0; i < 10_000; i++) {
+            cache.put("junk" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (cache.mightContain("word" + i)) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+        assertThat(cache.expectedFalsePositiveRate()).isBetween(0.005, 0.02);
+        // about 9.6 bits per entry
+        assertThat(cache.sizeInBytes()).isLessThan(13_000L);
+    }
+
+    @Test
+    public void filterIsClearedAfterResetInterval() {
+        NegativeCache cache = new NegativeCache.Builder()
+                .resetAfter(10, TimeUnit.MINUTES)
+                .ticker(now::get)
+                .build();
+        cache.put("junk");
+        now.addAndGet(TimeUnit.MINUTES.toNanos(9));
+        assertThat(cache.mightContain("junk")).isTrue();
+        now.addAndGet(TimeUnit.MINUTES.toNanos(1));
+        assertThat(cache.mightContain("junk")).isFalse();
+        assertThat(cache.getResetCount()).isEqualTo(1L);
+    }
+
+    @Test
+    public void sampledPositivesMeasureFalsePositiveRate() {
+        NegativeCache cache = new NegativeCache.Builder().verifyEvery(4).build();
+        int verified = 0;
+        for (int i = 0; i < 16; i++) {
+            if (cache.shouldVerify()) {
+                verified++;
+                cache.recordVerification(verified != 1);
+            }
+        }
+        assertThat(verified).isEqualTo(4);
+        assertThat(cache.getHitCount()).isEqualTo(12L);
+        assertThat(cache.measuredFalsePositiveRate()).isEqualTo(0.25);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.cache;
+
+import javajo.sample.codic.model.Candidates;
+import javajo.sample.codic.model.Translation;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static javajo.sample.codic.cache.TestTranslations.translation;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OffHeapTranslationCacheTest {
+
+    @Test
+    public void entriesRoundTrip() {
+        OffHeapTranslationCache cache = new OffHeapTranslationCache.Builder().slabSize(4096).capacity(4096 * 4).build();
+        List<Translation> translations = translation("取得", "acquisition", "get", "acquired", "fetch");
+        cache.put("取得", translations);
+        cache.put("削除", translation("削除", "delete", "remove"));
+
+        assertThat(cache.get("取得")).isEqualTo(translations);
+        assertThat(cache.get("削除").get(0).getWords().get(0).getCandidates())
+                .containsExactly(new Candidates("delete"), new Candidates("remove"));
+        assertThat(cache.get("更新")).isNull();
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.offHeapSize()).isEqualTo(4096L);
+        assertThat(cache.stats().getHitCount()).isEqualTo(2);
+        assertThat(cache.stats().getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void latestWriteWins() {
+        OffHeapTranslationCache cache = new OffHeapTranslationCache.Builder().slabSize(4096).capacity(4096 * 4).build();
+        cache.put("取得", translation("取得", "get"));
+        cache.put("取得", translation("取得", "acquisition"));
+
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.get("取得").get(0).getTranslatedText()).isEqualTo("acquisition");
+    }
+
+    @Test
+    public void oldestSlabIsEvictedWhenFull() {
+        OffHeapTranslationCache cache = new OffHeapTranslationCache.Builder().slabSize(4096).capacity(4096 * 2).build();
+        for (int i = 0; i < 1000; i++) {
+            cache.put("key" + i, translation("key" + i, "value" + i));
+        }
+
+        assertThat(cache.offHeapSize()).isEqualTo(4096L * 2);
+        assertThat(cache.get("key999").get(0).getTranslatedText()).isEqualTo("value999");
+        assertThat(cache.get("key0")).isNull();
+        assertThat(cache.stats().getEvictionCount()).isEqualTo(1000L - cache.size());
+    }
+
+    @Test
+    public void closeReleasesSlabs() {
+        OffHeapTranslationCache cache = new OffHeapTranslationCache.Builder().slabSize(4096).capacity(4096 * 4).build();
+        cache.put("取得", translation("取得", "get"));
+        cache.close();
+
+        assertThat(cache.size()).isZero();
+        assertThat(cache.offHeapSize()).isZero();
+        assertThat(cache.get("取得")).isNull();
+
+        cache.put("削除", translation("削除", "delete"));
+        assertThat(cache.get("削除").get(0).getTranslatedText()).isEqualTo("delete");
+    }
+
+    @Test
+    public void oversizedEntriesAreRejected() {
+        OffHeapTranslationCache cache = new OffHeapTranslationCache.Builder().slabSize(1024).capacity(4096).build();
+        String[] candidates = new String[100];
+        for (int i = 0; i < candidates.length; i++) {
+            candidates[i] = "acquisition" + i;
+        }
+        cache.put("取得", translation("取得", candidates));
+
+        assertThat(cache.get("取得")).isNull();
+        assertThat(cache.stats().getRejectionCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void entriesExpireAfterWrite() {
+        AtomicLong now = new AtomicLong();
+        OffHeapTranslationCache cache = new OffHeapTranslationCache.Builder()
+                .slabSize(4096)
+                .expireAfterWrite(1, TimeUnit.MINUTES)
+                .ticker(now::get)
+                .build();
+        cache.put("取得", translation("取得", "acquisition"));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(59));
+        assertThat(cache.get("取得")).isNotNull();
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertThat(cache.get("取得")).isNull();
+        assertThat(cache.size()).isZero();
+    }
+}
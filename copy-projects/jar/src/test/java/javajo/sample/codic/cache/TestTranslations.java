@@ -0,0 +1,48 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.cache;
+
+import javajo.sample.codic.model.Candidates;
+import javajo.sample.codic.model.Translation;
+import javajo.sample.codic.model.Word;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+
+final class TestTranslations {
+
+    private TestTranslations() {}
+
+    /**
+     * A successful one-word translation whose first candidate is also the translated text.
+     */
+    static List<Translation> translation(String text, String... candidates) {
+        Word word = new Word();
+        word.setSuccessful(true);
+        word.setText(text);
+        word.setTranslatedText(candidates[0]);
+        word.setCandidates(Arrays.stream(candidates).map(Candidates::new).collect(toList()));
+        Translation translation = new Translation();
+        translation.setSuccessful(true);
+        translation.setText(text);
+        translation.setTranslatedText(candidates[0]);
+        translation.setWords(Collections.singletonList(word));
+        return Collections.singletonList(translation);
+    }
+}
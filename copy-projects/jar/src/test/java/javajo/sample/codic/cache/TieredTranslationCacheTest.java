@@ -0,0 +1,78 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.cache;
+
+import javajo.sample.codic.model.Translation;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static javajo.sample.codic.cache.TestTranslations.translation;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TieredTranslationCacheTest {
+
+    private final InMemoryTranslationCache onHeap = new InMemoryTranslationCache.Builder().maximumSize(1).build();
+
+    private final OffHeapTranslationCache offHeap = new OffHeapTranslationCache.Builder().slabSize(4096).capacity(4096 * 4).build();
+
+    private final TieredTranslationCache cache = new TieredTranslationCache(onHeap, offHeap);
+
+    @Test
+    public void putsReachBothTiers() {
+        List<Translation> translations = translation("取得", "acquisition", "get");
+        cache.put("取得", translations);
+
+        assertThat(onHeap.get("取得")).isEqualTo(translations);
+        assertThat(offHeap.get("取得")).isEqualTo(translations);
+    }
+
+    @Test
+    public void secondTierHitIsPromoted() {
+        List<Translation> translations = translation("削除", "delete", "remove");
+        offHeap.put("削除", translations);
+
+        assertThat(cache.get("削除")).isEqualTo(translations);
+        assertThat(onHeap.get("削除")).isEqualTo(translations);
+        assertThat(cache.get("更新")).isNull();
+
+        CacheStats stats = cache.stats();
+        assertThat(stats.getHitCount()).isEqualTo(2L);
+        assertThat(stats.getMissCount()).isEqualTo(1L);
+    }
+
+    @Test
+    public void entriesEvictedFromTheFirstTierAreStillFound() {
+        for (int i = 0; i < 100; i++) {
+            cache.put("key" + i, translation("key" + i, "value" + i));
+        }
+
+        assertThat(onHeap.size()).isEqualTo(1L);
+        for (int i = 0; i < 100; i++) {
+            assertThat(cache.get("key" + i).get(0).getTranslatedText()).isEqualTo("value" + i);
+        }
+        assertThat(cache.stats().getMissCount()).isZero();
+    }
+
+    @Test
+    public void closeReleasesClosableTiers() throws IOException {
+        cache.put("取得", translation("取得", "acquisition"));
+        cache.close();
+
+        assertThat(offHeap.size()).isZero();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.decode;
+
+import javajo.sample.codic.load.CodicStubServer;
+import javajo.sample.codic.model.Translation;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StringPoolTest {
+
+    @Test
+    public void equalTextsShareOneInstance() {
+        StringPool pool = new StringPool(64);
+        String first = pool.intern(new String("acquisition"));
+        String second = pool.intern(new String("acquisition"));
+
+        assertThat(second).isSameAs(first);
+        assertThat(pool.intern("acquisition".toCharArray(), 0, 11)).isSameAs(first);
+        StringPoolStats stats = pool.stats();
+        assertThat(stats.getRequestCount()).isEqualTo(3L);
+        assertThat(stats.getDedupCount()).isEqualTo(2L);
+        assertThat(stats.getDedupedChars()).isEqualTo(22L);
+    }
+
+    @Test
+    public void poolStaysWithinCapacity() {
+        StringPool pool = new StringPool(100);
+        assertThat(pool.capacity()).isEqualTo(128);
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(pool.intern("text" + i)).isEqualTo("text" + i);
+        }
+        char[] chars = "xtext42y".toCharArray();
+        assertThat(pool.intern(chars, 1, 6)).isEqualTo("text42");
+    }
+
+    @Test
+    public void decodedTranslationsShareCandidateTexts() throws IOException {
+        byte[] body = CodicStubServer.responseBody("取得", 2, 4).getBytes(StandardCharsets.UTF_8);
+        InterningTranslationDecoder decoder = new InterningTranslationDecoder(new GensonTranslationDecoder(), new StringPool(1024));
+
+        List<Translation> first = decoder.decode(new ByteArrayInputStream(body));
+        List<Translation> second = decoder.decode(new ByteArrayInputStream(body));
+
+        assertThat(second).isEqualTo(first);
+        assertThat(second.get(0).getWords().get(1).getCandidates().get(3).getText())
+                .isSameAs(first.get(0).getWords().get(1).getCandidates().get(3).getText());
+        assertThat(second.get(0).getText()).isSameAs(first.get(0).getWords().get(0).getText());
+        assertThat(decoder.getPool().stats().getDedupRate()).isGreaterThan(0.5);
+    }
+
+    @Test
+    public void utf8DecoderInternsWhileParsing() throws IOException {
+        byte[] body = CodicStubServer.responseBody("取得", 2, 4).getBytes(StandardCharsets.UTF_8);
+        InterningTranslationDecoder decoder = new InterningTranslationDecoder(new Utf8TranslationDecoder(), new StringPool(1024));
+
+        List<Translation> first = decoder.decode(new ByteArrayInputStream(body));
+        List<Translation> second = decoder.decode(new ByteArrayInputStream(body));
+
+        assertThat(decoder.name()).isEqualTo(Utf8TranslationDecoder.NAME);
+        assertThat(second).isEqualTo(first);
+        assertThat(second.get(0).getWords().get(1).getCandidates().get(3).getText())
+                .isSameAs(first.get(0).getWords().get(1).getCandidates().get(3).getText());
+        assertThat(decoder.getPool().stats().getDedupRate()).isGreaterThan(0.5);
+    }
+
+    @Test
+    public void nullTranslationsWordsAndCandidatesAreSkipped() throws IOException {
+        byte[] body = ("[null,{\"successful\":true,\"text\":\"取得\",\"translated_text\":null,\"words\":"
+                + "[null,{\"successful\":true,\"text\":\"取得\",\"translated_text\":null,\"candidates\":[null,{\"text\":\"get\"}]}]},"
+                + "{\"successful\":false,\"text\":\"取得\",\"translated_text\":null,\"words\":null}]").getBytes(StandardCharsets.UTF_8);
+        InterningTranslationDecoder decoder = new InterningTranslationDecoder(new GensonTranslationDecoder(), new StringPool(1024));
+
+        List<Translation> translations = decoder.decode(new ByteArrayInputStream(body));
+
+        assertThat(translations).hasSize(3);
+        assertThat(translations.get(0)).isNull();
+        assertThat(translations.get(1).getWords().get(0)).isNull();
+        assertThat(translations.get(1).getWords().get(1).getCandidates().get(0)).isNull();
+        assertThat(translations.get(2).getText()).isSameAs(translations.get(1).getText());
+    }
+}
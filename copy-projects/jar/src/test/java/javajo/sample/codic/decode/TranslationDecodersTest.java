@@ -0,0 +1,61 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.decode;
+
+import javajo.sample.codic.model.Candidates;
+import javajo.sample.codic.model.Translation;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TranslationDecodersTest {
+
+    private final ClassLoader loader = getClass().getClassLoader();
+
+    private List<Translation> decode(TranslationDecoder decoder) throws IOException {
+        try (InputStream is = loader.getResourceAsStream("sample-response.json")) {
+            return decoder.decode(is);
+        }
+    }
+
+    @Test
+    public void gensonDecoderIsDefault() {
+        assertThat(TranslationDecoders.defaultDecoder().name())
+                .isEqualTo(GensonTranslationDecoder.NAME);
+    }
+
+    @Test
+    public void decodersAgreeOnSampleResponse() throws IOException {
+        List<Translation> byGenson = decode(TranslationDecoders.named(GensonTranslationDecoder.NAME));
+        List<Translation> byJpp = decode(TranslationDecoders.named(JsonPullParserTranslationDecoder.NAME));
+        List<Translation> byUtf8 = decode(TranslationDecoders.named(Utf8TranslationDecoder.NAME));
+
+        assertThat(byGenson).hasSize(1);
+        assertThat(byGenson.get(0).getWords().get(0).getCandidates())
+                .containsExactly(new Candidates("acquisition"), new Candidates("get"), new Candidates("acquired"), new Candidates("fetch"));
+        assertThat(byJpp).isEqualTo(byGenson);
+        assertThat(byUtf8).isEqualTo(byGenson);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownDecoderIsRejected() {
+        TranslationDecoders.named("unknown");
+    }
+}
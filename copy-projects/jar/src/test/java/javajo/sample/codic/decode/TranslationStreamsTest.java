@@ -0,0 +1,132 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.decode;
+
+import com.owlike.genson.GenericType;
+import com.owlike.genson.Genson;
+import com.owlike.genson.GensonBuilder;
+import javajo.sample.codic.load.CodicStubServer;
+import javajo.sample.codic.model.Translation;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TranslationStreamsTest {
+
+    private final Genson genson = new GensonBuilder().useMethods(true).create();
+
+    private static InputStream input(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String translation(String text, int words) {
+        String response = CodicStubServer.responseBody(text, words, 8);
+        return response.substring(1, response.length() - 1);
+    }
+
+    @Test
+    public void elementsLargerThanTheBufferAreDecoded() {
+        List<String> elements = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            elements.add(translation("取得" + i, i % 5 * 10));
+        }
+        elements.add(2, "null");
+        String json = " [ " + String.join(" ,\n", elements) + " ] \n";
+
+        List<Translation> expected = genson.deserialize(json, new GenericType<List<Translation>>() {});
+        try (Stream<Translation> stream = TranslationStreams.stream(input(json), null, 64)) {
+            assertThat(stream.collect(Collectors.toList())).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void archivedResponsesAreFlattened() {
+        String json = "[" + CodicStubServer.responseBody("取得", 1, 4) + ",[],"
+                + "[" + translation("削除", 1) + "," + translation("更新", 2) + "]]";
+
+        try (Stream<Translation> stream = TranslationStreams.stream(input(json))) {
+            assertThat(stream.map(Translation::getText).collect(Collectors.toList()))
+                    .containsExactly("取得", "削除", "更新");
+        }
+        try (Stream<Translation> stream = TranslationStreams.stream(input("[]"))) {
+            assertThat(stream.count()).isZero();
+        }
+    }
+
+    @Test
+    public void unboundedArrayIsReadLazily() {
+        byte[] element = (translation("取得", 1) + ",").getBytes(StandardCharsets.UTF_8);
+        AtomicBoolean closed = new AtomicBoolean();
+        InputStream endless = new InputStream() {
+            private long position;
+
+            @Override
+            public int read() {
+                return position++ == 0 ? '[' : element[(int) ((position - 2) % element.length)] & 0xFF;
+            }
+
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+
+        try (Stream<Translation> stream = TranslationStreams.stream(endless)) {
+            assertThat(stream.limit(10_000).filter(t -> t.getText().equals("取得")).count()).isEqualTo(10_000L);
+        }
+        assertThat(closed.get()).isTrue();
+    }
+
+    @Test
+    public void malformedArrayFailsWithOffset() {
+        try (Stream<Translation> stream = TranslationStreams.stream(input("[" + translation("取得", 1) + ",]"))) {
+            stream.count();
+            throw new AssertionError("expected failure");
+        } catch (UncheckedIOException e) {
+            assertThat(e.getCause()).hasMessageContaining("translation expected");
+        }
+        try (Stream<Translation> stream = TranslationStreams.stream(input("[" + translation("取得", 1)))) {
+            stream.count();
+            throw new AssertionError("expected failure");
+        } catch (UncheckedIOException e) {
+            assertThat(e.getCause()).hasMessageContaining("end of input");
+        }
+    }
+
+    @Test
+    public void nullElementsAreValidated() {
+        try (Stream<Translation> stream = TranslationStreams.stream(input("[null, null]"))) {
+            assertThat(stream.collect(Collectors.toList())).containsExactly(null, null);
+        }
+        for (String json : new String[] {"[nul]", "[nuxl]", "[nullx]", "[nul"}) {
+            try (Stream<Translation> stream = TranslationStreams.stream(input(json))) {
+                stream.count();
+                throw new AssertionError("accepted " + json);
+            } catch (UncheckedIOException expected) {
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.decode;
+
+import com.owlike.genson.GenericType;
+import com.owlike.genson.Genson;
+import com.owlike.genson.GensonBuilder;
+import javajo.sample.codic.load.CodicStubServer;
+import javajo.sample.codic.model.Candidates;
+import javajo.sample.codic.model.Translation;
+import javajo.sample.codic.model.TranslationJppAdapter;
+import javajo.sample.codic.model.Word;
+import net.vvakame.util.jsonpullparser.JsonFormatException;
+import net.vvakame.util.jsonpullparser.JsonPullParser;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class Utf8TranslationParserTest {
+
+    private final Genson genson = new GensonBuilder().useMethods(true).create();
+
+    private List<Translation> byGenson(byte[] json) {
+        return genson.deserialize(new String(json, StandardCharsets.UTF_8), new GenericType<List<Translation>>() {});
+    }
+
+    private static byte[] utf8(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private byte[] sampleResponse() throws IOException {
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("sample-response.json")) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    @Test
+    public void sampleResponseMatchesGenson() throws IOException {
+        byte[] json = sampleResponse();
+        List<Translation> list = Utf8TranslationParser.parse(ByteBuffer.wrap(json));
+
+        assertThat(list).hasSize(1);
+        assertThat(list.get(0).getTranslatedText()).isEqualTo("acquisition");
+        assertThat(list).isEqualTo(byGenson(json));
+    }
+
+    @Test
+    public void sampleResponseMatchesJsonPullParser() throws IOException, JsonFormatException {
+        byte[] json = sampleResponse();
+        List<Translation> byJpp = TranslationJppAdapter.getList(JsonPullParser.newParser(new String(json, StandardCharsets.UTF_8)));
+
+        assertThat(byJpp).hasSize(1);
+        assertThat(byJpp.get(0).getTranslatedText()).isEqualTo("acquisition");
+        assertThat(Utf8TranslationParser.parse(ByteBuffer.wrap(json))).isEqualTo(byJpp);
+    }
+
+    @Test
+    public void directBufferAndLargeResponseMatchGenson() throws IOException {
+        byte[] json = utf8(CodicStubServer.responseBody("データ取得", 100, 16));
+        ByteBuffer direct = ByteBuffer.allocateDirect(json.length);
+        direct.put(json).flip();
+
+        assertThat(Utf8TranslationParser.parse(direct)).isEqualTo(byGenson(json));
+        assertThat(direct.position()).isZero();
+    }
+
+    @Test
+    public void escapesAndMultiByteCharactersAreDecoded() throws IOException {
+        String json = "[{\"successful\":true,\"text\":\"\\u53d6\\u5f97 \\\"q\\\" \\\\ \\/ \\n\","
+                + "\"translated_text\":\"é😀\",\"words\":[]}]";
+
+        Translation translation = Utf8TranslationParser.parse(ByteBuffer.wrap(utf8(json))).get(0);
+
+        assertThat(translation.getText()).isEqualTo("取得 \"q\" \\ / \n");
+        assertThat(translation.getTranslatedText()).isEqualTo("é😀");
+        assertThat(translation.getWords()).isEmpty();
+    }
+
+    @Test
+    public void unknownMembersAndNullsAreSkipped() throws IOException {
+        String json = " [ { \"score\" : -1.5e3 , \"meta\" : {\"a\":[1,{\"b\":\"}]\"}]}, \"successful\" : true ,"
+                + " \"text\" : null, \"words\" : [ {\"text\":\"取得\",\"candidates\":[{\"text\":\"get\",\"rank\":1}, {}, null],"
+                + " \"extra\":[true,false,null]} ] } ] ";
+
+        Translation translation = Utf8TranslationParser.parse(ByteBuffer.wrap(utf8(json))).get(0);
+
+        assertThat(translation.isSuccessful()).isTrue();
+        assertThat(translation.getText()).isNull();
+        Word word = translation.getWords().get(0);
+        assertThat(word.getText()).isEqualTo("取得");
+        assertThat(word.getCandidates()).containsExactly(new Candidates("get"), new Candidates(null), null);
+    }
+
+    @Test
+    public void textsGoThroughThePool() throws IOException {
+        byte[] json = utf8(CodicStubServer.responseBody("取得", 2, 4));
+        StringPool pool = new StringPool(256);
+
+        List<Translation> first = Utf8TranslationParser.parse(ByteBuffer.wrap(json), pool);
+        List<Translation> second = Utf8TranslationParser.parse(ByteBuffer.wrap(json), pool);
+
+        assertThat(second.get(0).getWords().get(1).getCandidates().get(2).getText())
+                .isSameAs(first.get(0).getWords().get(1).getCandidates().get(2).getText());
+    }
+
+    @Test
+    public void candidateProjectionMatchesFullDecode() throws IOException {
+        byte[] json = utf8(CodicStubServer.responseBody("取得", 3, 5));
+        List<String> expected = new ArrayList<>();
+        for (Word word : byGenson(json).get(0).getWords()) {
+            for (Candidates candidate : word.getCandidates()) {
+                expected.add(candidate.getText());
+            }
+        }
+
+        assertThat(Utf8TranslationParser.parseCandidateTexts(ByteBuffer.wrap(json), null)).isEqualTo(expected);
+        assertThat(Utf8TranslationParser.parseCandidateTexts(ByteBuffer.wrap(sampleResponse()), null))
+                .containsExactly("acquisition", "get", "acquired", "fetch");
+    }
+
+    @Test
+    public void candidateProjectionSkipsOtherMembersAndNulls() throws IOException {
+        String json = "[{\"text\":\"x\",\"words\":[null,{\"candidates\":null},"
+                + "{\"text\":{\"candidates\":[{\"text\":\"nested\"}]},\"candidates\":[{\"text\":\"get\"},null,{\"text\":null},{}]}]},null]";
+
+        assertThat(Utf8TranslationParser.parseCandidateTexts(ByteBuffer.wrap(utf8(json)), null)).containsExactly("get");
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedResponseIsRejected() throws IOException {
+        byte[] json = utf8(CodicStubServer.responseBody("取得", 1, 4));
+        Utf8TranslationParser.parse(ByteBuffer.wrap(json, 0, json.length - 3));
+    }
+
+    @Test
+    public void literalsMustEndAtADelimiter() {
+        for (String json : new String[] {
+                "[{\"successful\":truex}]", "[{\"successful\":falsey}]",
+                "[{\"text\":nullz}]", "[{\"successful\":true1,\"text\":\"x\"}]"}) {
+            try {
+                Utf8TranslationParser.parse(ByteBuffer.wrap(utf8(json)));
+                throw new AssertionError("accepted " + json);
+            } catch (IOException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void literalsMayEndTheirContainer() throws IOException {
+        Translation translation = Utf8TranslationParser.parse(
+                ByteBuffer.wrap(utf8("[{\"text\":null,\"words\":[null],\"successful\":true}]"))).get(0);
+
+        assertThat(translation.isSuccessful()).isTrue();
+        assertThat(translation.getWords()).containsExactly((Word) null);
+    }
+
+    @Test(expected = IOException.class)
+    public void trailingDataIsRejected() throws IOException {
+        Utf8TranslationParser.parse(ByteBuffer.wrap(utf8("[] []")));
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.encode;
+
+import javajo.sample.codic.decode.GensonTranslationDecoder;
+import javajo.sample.codic.decode.Utf8TranslationParser;
+import javajo.sample.codic.model.Candidates;
+import javajo.sample.codic.model.Translation;
+import javajo.sample.codic.model.Word;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TranslationJsonWriterTest {
+
+    private final ClassLoader loader = getClass().getClassLoader();
+
+    private List<Translation> sampleResponse() throws IOException {
+        try (InputStream is = loader.getResourceAsStream("sample-response.json")) {
+            return new GensonTranslationDecoder().decode(is);
+        }
+    }
+
+    private static List<Translation> translations(String text, int words, int candidates) {
+        List<Word> wordList = new ArrayList<>();
+        for (int w = 0; w < words; w++) {
+            List<Candidates> candidateList = new ArrayList<>();
+            for (int c = 0; c < candidates; c++) {
+                candidateList.add(new Candidates(text + "_" + w + "_" + c));
+            }
+            Word word = new Word();
+            word.setSuccessful(true);
+            word.setText(text + w);
+            word.setTranslatedText(text + "_" + w);
+            word.setCandidates(candidateList);
+            wordList.add(word);
+        }
+        Translation translation = new Translation();
+        translation.setSuccessful(true);
+        translation.setText(text);
+        translation.setTranslatedText(text + "_0");
+        translation.setWords(wordList);
+        return Collections.singletonList(translation);
+    }
+
+    @Test
+    public void writtenJsonDecodesToTheApiResponse() throws IOException {
+        List<Translation> translations = sampleResponse();
+        String json = TranslationJsonWriter.toJson(translations);
+
+        assertThat(Utf8TranslationParser.parse(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)))).isEqualTo(translations);
+    }
+
+    @Test
+    public void writtenBytesAreUtf8OfWrittenChars() throws IOException {
+        List<Translation> translations = translations("取得\"\\\n😀", 100, 16);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        TranslationJsonWriter.write(translations, bytes);
+
+        assertThat(bytes.toByteArray()).isEqualTo(TranslationJsonWriter.toJson(translations).getBytes(StandardCharsets.UTF_8));
+        assertThat(Utf8TranslationParser.parse(ByteBuffer.wrap(bytes.toByteArray()))).isEqualTo(translations);
+    }
+
+    @Test
+    public void nullsAndControlCharactersSurvive() throws IOException {
+        Word word = new Word();
+        word.setText("tab\there\u0001");
+        word.setCandidates(Arrays.asList(new Candidates("get"), new Candidates(null), null));
+        Translation withWords = new Translation();
+        withWords.setSuccessful(true);
+        withWords.setWords(Arrays.asList(word, null));
+        Translation withoutWords = new Translation();
+        withoutWords.setText("");
+        List<Translation> original = Arrays.asList(withoutWords, withWords);
+
+        String json = TranslationJsonWriter.toJson(original);
+        assertThat(json).contains("\"tab\\there\\u0001\"");
+        assertThat(Utf8TranslationParser.parse(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)))).isEqualTo(original);
+        assertThat(TranslationJsonWriter.toJson(Collections.<Translation>emptyList())).isEqualTo("[]");
+    }
+}
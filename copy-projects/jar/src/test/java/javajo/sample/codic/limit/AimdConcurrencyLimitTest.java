@@ -0,0 +1,113 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.limit;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AimdConcurrencyLimitTest {
+
+    private static final long RTT = 10_000_000L;
+
+    @Test
+    public void tasksOverLimitWaitForRelease() {
+        AimdConcurrencyLimit limit = new AimdConcurrencyLimit.Builder().initialLimit(2).build();
+        AtomicInteger started = new AtomicInteger();
+        for (int i = 0; i < 5; i++) {
+            limit.execute(started::incrementAndGet);
+        }
+        assertThat(started.get()).isEqualTo(2);
+        assertThat(limit.getWaiting()).isEqualTo(3);
+
+        limit.onIgnored();
+        assertThat(started.get()).isEqualTo(3);
+        assertThat(limit.getInFlight()).isEqualTo(2);
+    }
+
+    @Test
+    public void waitersReleasingInlineDoNotRecurse() {
+        AimdConcurrencyLimit limit = new AimdConcurrencyLimit.Builder().initialLimit(1).maxLimit(1).build();
+        AtomicInteger started = new AtomicInteger();
+        limit.execute(started::incrementAndGet);
+        // like queued calls whose callers have already cancelled: each gives its slot straight back
+        for (int i = 0; i < 100_000; i++) {
+            limit.execute(() -> {
+                started.incrementAndGet();
+                limit.onIgnored();
+            });
+        }
+
+        limit.onIgnored();
+        assertThat(started.get()).isEqualTo(100_001);
+        assertThat(limit.getInFlight()).isZero();
+        assertThat(limit.getWaiting()).isZero();
+    }
+
+    @Test
+    public void limitGrowsWhileLatencyIsHealthy() {
+        AimdConcurrencyLimit limit = new AimdConcurrencyLimit.Builder().initialLimit(4).build();
+        for (int i = 0; i < 100; i++) {
+            fill(limit);
+            limit.onSuccess(RTT);
+            drain(limit);
+        }
+        assertThat(limit.getLimit()).isGreaterThan(4);
+    }
+
+    @Test
+    public void limitShrinksOnOverloadAndSlowResponses() {
+        AimdConcurrencyLimit limit = new AimdConcurrencyLimit.Builder().initialLimit(20).build();
+        limit.execute(() -> {});
+        limit.onSuccess(RTT);
+        for (int i = 0; i < 5; i++) {
+            limit.execute(() -> {});
+            limit.onDropped();
+        }
+        int afterDrops = limit.getLimit();
+        assertThat(afterDrops).isLessThan(20);
+
+        for (int i = 0; i < 5; i++) {
+            limit.execute(() -> {});
+            limit.onSuccess(RTT * 5);
+        }
+        assertThat(limit.getLimit()).isLessThan(afterDrops);
+    }
+
+    @Test
+    public void limitNeverFallsBelowMinimum() {
+        AimdConcurrencyLimit limit = new AimdConcurrencyLimit.Builder().initialLimit(2).minLimit(2).build();
+        for (int i = 0; i < 50; i++) {
+            limit.execute(() -> {});
+            limit.onDropped();
+        }
+        assertThat(limit.getLimit()).isEqualTo(2);
+    }
+
+    private static void fill(AimdConcurrencyLimit limit) {
+        while (limit.getInFlight() < limit.getLimit()) {
+            limit.execute(() -> {});
+        }
+    }
+
+    private static void drain(AimdConcurrencyLimit limit) {
+        while (limit.getInFlight() > 0) {
+            limit.onSuccess(RTT);
+        }
+    }
+}
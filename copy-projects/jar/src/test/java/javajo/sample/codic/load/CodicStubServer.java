@@ -0,0 +1,249 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.load;
+
+import com.squareup.okhttp.HttpUrl;
+import com.squareup.okhttp.mockwebserver.Dispatcher;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for the Codic translate API.
+ * <p>
+ * Answers in the shape of {@code sample-response.json}, echoing the requested text,
+ * with configurable latency, error rate and payload size.
+ */
+public final class CodicStubServer {
+
+    public static final String TRANSLATE_PATH = "/v1/engine/translate.json";
+
+    private final MockWebServer server = new MockWebServer();
+
+    private final LatencyDistribution latency;
+
+    private final double errorRate;
+
+    private final int errorStatus;
+
+    private final int words;
+
+    private final int candidates;
+
+    private final AtomicLong requests = new AtomicLong();
+
+    private final AtomicLong errors = new AtomicLong();
+
+    private CodicStubServer(Builder builder) {
+        this.latency = builder.latency;
+        this.errorRate = builder.errorRate;
+        this.errorStatus = builder.errorStatus;
+        this.words = builder.words;
+        this.candidates = builder.candidates;
+        server.setServerSocketFactory(new NoDelayServerSocketFactory());
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                return respond(request);
+            }
+        });
+    }
+
+    public CodicStubServer start(int port) throws IOException {
+        server.start(port);
+        return this;
+    }
+
+    public CodicStubServer start() throws IOException {
+        return start(0);
+    }
+
+    public HttpUrl url() {
+        return server.url(TRANSLATE_PATH);
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    public long getErrorCount() {
+        return errors.get();
+    }
+
+    public void shutdown() throws IOException {
+        server.shutdown();
+    }
+
+    private MockResponse respond(RecordedRequest request) throws InterruptedException {
+        requests.incrementAndGet();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long delay = latency.sampleNanos(random);
+        if (delay > 0L) {
+            TimeUnit.NANOSECONDS.sleep(delay);
+        }
+        if (random.nextDouble() < errorRate) {
+            errors.incrementAndGet();
+            return new MockResponse().setResponseCode(errorStatus);
+        }
+        HttpUrl url = server.url(request.getPath());
+        String text = url == null ? null : url.queryParameter("text");
+        return new MockResponse()
+                .setHeader("Content-Type", "application/json;charset=utf-8")
+                .setBody(responseBody(text == null ? "" : text, words, candidates));
+    }
+
+    public static String responseBody(String text, int words, int candidates) {
+        StringBuilder json = new StringBuilder(256 + words * (96 + candidates * 32));
+        json.append("[{\"successful\":true,\"text\":");
+        string(json, text);
+        json.append(",\"translated_text\":");
+        string(json, translated(text, 0));
+        json.append(",\"words\":[");
+        for (int w = 0; w < words; w++) {
+            if (w > 0) json.append(',');
+            json.append("{\"successful\":true,\"text\":");
+            string(json, text);
+            json.append(",\"translated_text\":");
+            string(json, translated(text, w));
+            json.append(",\"candidates\":[");
+            for (int c = 0; c < candidates; c++) {
+                if (c > 0) json.append(',');
+                json.append("{\"text\":");
+                string(json, translated(text, w) + (c == 0 ? "" : "_" + c));
+                json.append('}');
+            }
+            json.append("]}");
+        }
+        return json.append("]}]").toString();
+    }
+
+    private static String translated(String text, int word) {
+        return "word" + word + "_" + Integer.toHexString(text.hashCode());
+    }
+
+    private static void string(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Builder builder = new Builder();
+        int port = 8080;
+        for (String arg : args) {
+            if (arg.startsWith("--port=")) {
+                port = Integer.parseInt(arg.substring("--port=".length()));
+            } else if (!builder.option(arg)) {
+                throw new IllegalArgumentException("Unknown option[" + arg + "].");
+            }
+        }
+        CodicStubServer stub = builder.build().start(port);
+        System.out.println("Codic stub listening on " + stub.url());
+        Thread.currentThread().join();
+    }
+
+    public static class Builder {
+
+        private LatencyDistribution latency = LatencyDistribution.none();
+
+        private double errorRate;
+
+        private int errorStatus = 503;
+
+        private int words = 1;
+
+        private int candidates = 4;
+
+        public Builder latency(LatencyDistribution latency) {
+            this.latency = latency;
+            return this;
+        }
+
+        public Builder errorRate(double errorRate) {
+            if (errorRate < 0.0 || errorRate > 1.0) {
+                throw new IllegalArgumentException("errorRate must be in [0, 1]");
+            }
+            this.errorRate = errorRate;
+            return this;
+        }
+
+        public Builder errorStatus(int errorStatus) {
+            this.errorStatus = errorStatus;
+            return this;
+        }
+
+        /**
+         * Payload size: words per response and candidates per word. Defaults to the 1 x 4 of {@code sample-response.json}.
+         */
+        public Builder payload(int words, int candidates) {
+            if (words < 1 || candidates < 1) {
+                throw new IllegalArgumentException("words and candidates must be positive");
+            }
+            this.words = words;
+            this.candidates = candidates;
+            return this;
+        }
+
+        /**
+         * Applies a {@code --latency=}, {@code --error-rate=}, {@code --error-status=}, {@code --words=}
+         * or {@code --candidates=} option; returns false for anything else.
+         */
+        boolean option(String arg) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                return false;
+            }
+            String value = arg.substring(eq + 1);
+            switch (arg.substring(0, eq)) {
+                case "--latency":
+                    latency(LatencyDistribution.parse(value));
+                    return true;
+                case "--error-rate":
+                    errorRate(Double.parseDouble(value));
+                    return true;
+                case "--error-status":
+                    errorStatus(Integer.parseInt(value));
+                    return true;
+                case "--words":
+                    payload(Integer.parseInt(value), candidates);
+                    return true;
+                case "--candidates":
+                    payload(words, Integer.parseInt(value));
+                    return true;
+                default:
+                    return false;
+            }
+        }
+
+        public CodicStubServer build() {
+            return new CodicStubServer(this);
+        }
+    }
+}
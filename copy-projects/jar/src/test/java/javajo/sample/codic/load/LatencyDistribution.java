@@ -0,0 +1,73 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.load;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server-side latency of the stub, sampled per request.
+ */
+public interface LatencyDistribution {
+
+    long sampleNanos(Random random);
+
+    static LatencyDistribution none() {
+        return random -> 0L;
+    }
+
+    static LatencyDistribution fixed(long millis) {
+        long nanos = TimeUnit.MILLISECONDS.toNanos(millis);
+        return random -> nanos;
+    }
+
+    static LatencyDistribution uniform(long minMillis, long maxMillis) {
+        long min = TimeUnit.MILLISECONDS.toNanos(minMillis);
+        long range = TimeUnit.MILLISECONDS.toNanos(maxMillis) - min;
+        return random -> min + (long) (random.nextDouble() * range);
+    }
+
+    /**
+     * Long-tailed latency typical of real services; {@code sigma} of 0.5 puts p99 at about 3x the median.
+     */
+    static LatencyDistribution logNormal(long medianMillis, double sigma) {
+        double mu = Math.log(TimeUnit.MILLISECONDS.toNanos(medianMillis));
+        return random -> (long) Math.exp(mu + sigma * random.nextGaussian());
+    }
+
+    /**
+     * Parses {@code none}, {@code fixed:MS}, {@code uniform:MIN_MS:MAX_MS} or {@code lognormal:MEDIAN_MS:SIGMA}.
+     */
+    static LatencyDistribution parse(String spec) {
+        String[] parts = spec.split(":");
+        try {
+            switch (parts[0]) {
+                case "none":
+                    return none();
+                case "fixed":
+                    return fixed(Long.parseLong(parts[1]));
+                case "uniform":
+                    return uniform(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+                case "lognormal":
+                    return logNormal(Long.parseLong(parts[1]), Double.parseDouble(parts[2]));
+                default:
+                    throw new IllegalArgumentException("Unknown latency distribution[" + spec + "].");
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid latency distribution[" + spec + "].", e);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.load;
+
+import com.squareup.okhttp.HttpUrl;
+import javajo.sample.codic.Codic;
+import javajo.sample.codic.HttpTransport;
+import javajo.sample.codic.metrics.LatencyHistogram;
+import javajo.sample.codic.metrics.LatencySummary;
+
+import java.io.IOException;
+import java.util.StringJoiner;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop load generator: keeps {@code concurrency} translations in flight
+ * and reports throughput and client-side latency percentiles.
+ * <p>
+ * Without {@code --url=} it starts a {@link CodicStubServer}, so runs are reproducible offline:
+ * <pre>
+ * gradle loadTest -PloadArgs="--requests=20000 --concurrency=64 --latency=lognormal:20:0.5 --error-rate=0.01"
+ * </pre>
+ */
+public final class LoadGenerator {
+
+    private static final String USAGE = "Usage: LoadGenerator [--url=ENTRY] [--requests=N] [--warmup=N] [--concurrency=N]"
+            + " [--distinct=N] [--latency=DIST] [--error-rate=R] [--error-status=CODE] [--words=N] [--candidates=N]";
+
+    private final Codic codic;
+
+    private final int concurrency;
+
+    public LoadGenerator(Codic codic, int concurrency) {
+        this.codic = codic;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Sends {@code requests} translations of {@code distinct} different texts.
+     */
+    public Result run(int requests, int distinct) throws InterruptedException {
+        Semaphore permits = new Semaphore(concurrency);
+        LatencyHistogram latency = new LatencyHistogram();
+        LongAdder errors = new LongAdder();
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            permits.acquire();
+            long sent = System.nanoTime();
+            codic.translateAsync("load" + (i % distinct)).whenComplete((translations, e) -> {
+                latency.record(System.nanoTime() - sent);
+                if (e != null) {
+                    errors.increment();
+                }
+                permits.release();
+            });
+        }
+        permits.acquire(concurrency);
+        return new Result(requests, errors.sum(), System.nanoTime() - start, latency.summary());
+    }
+
+    public static final class Result {
+
+        private final long requests;
+
+        private final long errors;
+
+        private final long elapsedNanos;
+
+        private final LatencySummary latency;
+
+        Result(long requests, long errors, long elapsedNanos, LatencySummary latency) {
+            this.requests = requests;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+            this.latency = latency;
+        }
+
+        public long getRequests() {
+            return requests;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public double getThroughput() {
+            return requests * (double) TimeUnit.SECONDS.toNanos(1) / Math.max(1L, elapsedNanos);
+        }
+
+        public LatencySummary getLatency() {
+            return latency;
+        }
+
+        @Override
+        public String toString() {
+            return new StringJoiner(", ", "Result:[", "]")
+                    .add("requests: [" + requests + "]")
+                    .add("errors: [" + errors + "]")
+                    .add("elapsed: [" + TimeUnit.NANOSECONDS.toMillis(elapsedNanos) + "ms]")
+                    .add("throughput: [" + String.format("%.1f", getThroughput()) + "/s]")
+                    .add("latency: [" + latency + "]")
+                    .toString();
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        CodicStubServer.Builder stubBuilder = new CodicStubServer.Builder();
+        String url = null;
+        int requests = 10_000;
+        int warmup = 1_000;
+        int concurrency = 32;
+        int distinct = -1;
+        for (String arg : args) {
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("--url=")) {
+                url = value;
+            } else if (arg.startsWith("--requests=")) {
+                requests = Integer.parseInt(value);
+            } else if (arg.startsWith("--warmup=")) {
+                warmup = Integer.parseInt(value);
+            } else if (arg.startsWith("--concurrency=")) {
+                concurrency = Integer.parseInt(value);
+            } else if (arg.startsWith("--distinct=")) {
+                distinct = Integer.parseInt(value);
+            } else if (!stubBuilder.option(arg)) {
+                throw new IllegalArgumentException("Unknown option[" + arg + "].\n" + USAGE);
+            }
+        }
+        CodicStubServer stub = null;
+        HttpUrl entry;
+        if (url == null) {
+            stub = stubBuilder.build().start();
+            entry = stub.url();
+        } else {
+            entry = HttpUrl.parse(url);
+            if (entry == null) {
+                throw new IllegalArgumentException("Invalid --url[" + url + "].\n" + USAGE);
+            }
+        }
+        HttpTransport transport = new HttpTransport.Builder().maxInFlight(concurrency).build();
+        Codic codic = new Codic.Builder()
+                .accessToken(url == null ? "load-test" : null)
+                .transport(transport)
+                .entry(entry)
+                .coalesce(false)
+                .build();
+        try {
+            LoadGenerator generator = new LoadGenerator(codic, concurrency);
+            if (warmup > 0) {
+                generator.run(warmup, warmup);
+            }
+            Result result = generator.run(requests, distinct > 0 ? distinct : requests);
+            System.out.println("target: " + entry);
+            System.out.println("concurrency: " + concurrency + ", connections: " + transport.getConnectionCount());
+            System.out.println(result);
+            System.out.println(codic.getMetrics().snapshot());
+        } finally {
+            if (stub != null) {
+                stub.shutdown();
+            }
+        }
+    }
+}
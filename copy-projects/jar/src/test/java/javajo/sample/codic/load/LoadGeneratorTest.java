@@ -0,0 +1,111 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.load;
+
+import javajo.sample.codic.Codic;
+import javajo.sample.codic.HttpTransport;
+import javajo.sample.codic.model.Translation;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LoadGeneratorTest {
+
+    private CodicStubServer stub;
+
+    @Before
+    public void setup() throws IOException {
+        stub = new CodicStubServer.Builder()
+                .latency(LatencyDistribution.uniform(1, 3))
+                .errorRate(0.1)
+                .payload(3, 5)
+                .build()
+                .start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        stub.shutdown();
+    }
+
+    private Codic codic() {
+        return new Codic.Builder()
+                .accessToken("test-token")
+                .transport(new HttpTransport.Builder().build())
+                .entry(stub.url().toString())
+                .coalesce(false)
+                .build();
+    }
+
+    @Test
+    public void stubEchoesTextWithRequestedPayload() throws IOException {
+        CodicStubServer errorFree = new CodicStubServer.Builder().payload(3, 5).build().start();
+        try {
+            Codic codic = new Codic.Builder()
+                    .accessToken("test-token")
+                    .entry(errorFree.url().toString())
+                    .build();
+            List<Translation> translations = codic.translate("取得");
+
+            assertThat(translations).hasSize(1);
+            assertThat(translations.get(0).getText()).isEqualTo("取得");
+            assertThat(translations.get(0).getWords()).hasSize(3);
+            assertThat(translations.get(0).getWords().get(0).getCandidates()).hasSize(5);
+        } finally {
+            errorFree.shutdown();
+        }
+    }
+
+    @Test
+    public void generatorReportsThroughputAndErrors() throws InterruptedException {
+        LoadGenerator.Result result = new LoadGenerator(codic(), 8).run(400, 400);
+
+        assertThat(result.getRequests()).isEqualTo(400L);
+        assertThat(result.getErrors()).isEqualTo(stub.getErrorCount());
+        assertThat(result.getErrors()).isGreaterThan(0L).isLessThan(400L);
+        assertThat(result.getLatency().getCount()).isEqualTo(400L);
+        assertThat(result.getLatency().getP50Micros()).isGreaterThanOrEqualTo(1_000L);
+        assertThat(result.getThroughput()).isGreaterThan(0.0);
+    }
+
+    @Test
+    public void invalidUrlIsRejectedWithUsage() throws IOException, InterruptedException {
+        try {
+            LoadGenerator.main(new String[] {"--url=not a url"});
+            throw new AssertionError("expected failure");
+        } catch (IllegalArgumentException e) {
+            assertThat(e).hasMessageContaining("Invalid --url[not a url]").hasMessageContaining("Usage:");
+        }
+    }
+
+    @Test
+    public void boundServerSocketsDisableNagle() throws IOException {
+        try (ServerSocket server = new NoDelayServerSocketFactory().createServerSocket(0, 1, InetAddress.getLoopbackAddress());
+             Socket client = new Socket(server.getInetAddress(), server.getLocalPort());
+             Socket accepted = server.accept()) {
+            assertThat(client.isConnected()).isTrue();
+            assertThat(accepted.getTcpNoDelay()).isTrue();
+        }
+    }
+}
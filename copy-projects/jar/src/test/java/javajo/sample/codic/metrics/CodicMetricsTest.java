@@ -0,0 +1,50 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.metrics;
+
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CodicMetricsTest {
+
+    @Test
+    public void registeredMBeanExposesLatencySummaries() throws Exception {
+        CodicMetrics metrics = new CodicMetrics();
+        metrics.recordResponse(TimeUnit.MILLISECONDS.toNanos(40), 0L, TimeUnit.MILLISECONDS.toNanos(30), 0L, 0L, 512L);
+        metrics.recordError("429");
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = metrics.registerMBean("test");
+        try {
+            assertThat(server.getAttribute(name, "RequestCount")).isEqualTo(2L);
+            assertThat(server.getAttribute(name, "ErrorCount")).isEqualTo(1L);
+            assertThat(server.getAttribute(name, "BytesReceived")).isEqualTo(512L);
+            CompositeData latency = (CompositeData) server.getAttribute(name, "TimeToFirstByteLatency");
+            assertThat((Long) latency.get("count")).isEqualTo(1L);
+            assertThat((Long) latency.get("maxMicros")).isEqualTo(30_000L);
+        } finally {
+            metrics.unregisterMBean("test");
+        }
+        assertThat(server.isRegistered(name)).isFalse();
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.metrics;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketBoundsCoverTheirValues() {
+        long[] values = {0L, 15L, 16L, 17L, 1_000L, 123_456_789L, Long.MAX_VALUE};
+        for (long value : values) {
+            int index = LatencyHistogram.indexOf(value);
+            assertThat(LatencyHistogram.upperBoundOf(index)).isGreaterThanOrEqualTo(value);
+            if (index > 0) {
+                assertThat(LatencyHistogram.upperBoundOf(index - 1)).isLessThan(value);
+            }
+        }
+    }
+
+    @Test
+    public void percentilesAreWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+        }
+        assertThat(histogram.getCount()).isEqualTo(1000L);
+        assertWithin(histogram.percentile(0.5), TimeUnit.MICROSECONDS.toNanos(500));
+        assertWithin(histogram.percentile(0.99), TimeUnit.MICROSECONDS.toNanos(990));
+        assertThat(histogram.percentile(1.0)).isEqualTo(TimeUnit.MICROSECONDS.toNanos(1000));
+
+        LatencySummary summary = histogram.summary();
+        assertThat(summary.getCount()).isEqualTo(1000L);
+        assertThat(summary.getMaxMicros()).isEqualTo(1000L);
+        assertThat(summary.getMeanMicros()).isEqualTo(500L);
+    }
+
+    private static void assertWithin(long actual, long expected) {
+        assertThat(actual).isGreaterThanOrEqualTo(expected);
+        assertThat(actual).isLessThanOrEqualTo(expected + expected / 16);
+    }
+}
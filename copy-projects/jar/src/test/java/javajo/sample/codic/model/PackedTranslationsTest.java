@@ -0,0 +1,99 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.model;
+
+import com.owlike.genson.GenericType;
+import com.owlike.genson.Genson;
+import com.owlike.genson.GensonBuilder;
+import javajo.sample.codic.load.CodicStubServer;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PackedTranslationsTest {
+
+    private final Genson genson = new GensonBuilder().useMethods(true).create();
+
+    private List<Translation> decode(String json) {
+        return genson.deserialize(json, new GenericType<List<Translation>>() {});
+    }
+
+    @Test
+    public void packedTranslationsEqualTheOriginal() {
+        List<Translation> original = decode(CodicStubServer.responseBody("取得", 10, 8));
+        PackedTranslations packed = PackedTranslations.pack(original);
+
+        assertThat(packed).hasSize(1);
+        assertThat(packed).isEqualTo(original);
+        assertThat(packed.get(0).getWords()).hasSize(10);
+        assertThat(packed.get(0).getWords().get(9).getCandidates()).hasSize(8);
+        assertThat(packed.hashCode()).isEqualTo(original.hashCode());
+    }
+
+    @Test
+    public void nullTextsAndListsSurvive() {
+        Word word = new Word();
+        word.setText("取得");
+        word.setCandidates(Arrays.asList(new Candidates("get"), new Candidates(null), new Candidates("fetch")));
+        Translation withWords = new Translation();
+        withWords.setSuccessful(true);
+        withWords.setWords(Collections.singletonList(word));
+        Translation withoutWords = new Translation();
+        withoutWords.setText("");
+        List<Translation> original = Arrays.asList(withoutWords, withWords);
+
+        PackedTranslations packed = PackedTranslations.pack(original);
+
+        assertThat(packed).isEqualTo(original);
+        assertThat(packed.get(0).getWords()).isNull();
+        assertThat(packed.get(0).getText()).isEmpty();
+        assertThat(packed.get(1).getTranslatedText()).isNull();
+        assertThat(PackedTranslations.pack(Collections.<Translation>emptyList())).isEmpty();
+    }
+
+    @Test
+    public void nullElementsSurvive() {
+        Word word = new Word();
+        word.setText("取得");
+        word.setCandidates(Arrays.asList(null, new Candidates("get"), null, null, new Candidates(null), new Candidates("fetch")));
+        Translation translation = new Translation();
+        translation.setText("取得");
+        translation.setWords(Arrays.asList(null, word, null));
+        List<Translation> original = Arrays.asList(null, translation, null);
+
+        PackedTranslations packed = PackedTranslations.pack(original);
+
+        assertThat(packed).isEqualTo(original);
+        assertThat(packed.get(0)).isNull();
+        assertThat(packed.get(1).getWords().get(1).getCandidates())
+                .containsExactly(null, new Candidates("get"), null, null, new Candidates(null), new Candidates("fetch"));
+        assertThat(packed.get(2)).isNull();
+    }
+
+    @Test
+    public void materializedTranslationsAreDetachedCopies() {
+        PackedTranslations packed = PackedTranslations.pack(decode(CodicStubServer.responseBody("取得", 1, 4)));
+
+        packed.get(0).getWords().get(0).setText("changed");
+
+        assertThat(packed.get(0).getWords().get(0).getText()).isEqualTo("取得");
+        assertThat(PackedTranslations.pack(packed)).isSameAs(packed);
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2015 Shinya Mochida
+ * 
+ * Licensed under the Apache License,Version2.0(the"License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing,software
+ * Distributed under the License is distributed on an"AS IS"BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package javajo.sample.codic.model;
+
+import com.owlike.genson.GenericType;
+import com.owlike.genson.Genson;
+import com.owlike.genson.GensonBuilder;
+import javajo.sample.codic.load.CodicStubServer;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TranslationCodecTest {
+
+    private final Genson genson = new GensonBuilder().useMethods(true).create();
+
+    private final TranslationCodec codec = new TranslationCodec.Builder().build();
+
+    private List<Translation> decode(String json) {
+        return genson.deserialize(json, new GenericType<List<Translation>>() {});
+    }
+
+    @Test
+    public void encodedTranslationsRoundTrip() throws IOException {
+        List<Translation> original = decode(CodicStubServer.responseBody("取得", 10, 8));
+        TranslationCodec inline = new TranslationCodec.Builder().stringTable(false).build();
+
+        assertThat(codec.decode(codec.encode(original))).isEqualTo(original);
+        assertThat(inline.decode(inline.encode(original))).isEqualTo(original);
+        // either codec reads both layouts
+        assertThat(codec.decode(inline.encode(original))).isEqualTo(original);
+    }
+
+    @Test
+    public void encodingIsSmallerThanJson() {
+        List<Translation> original = decode(CodicStubServer.responseBody("取得", 10, 8));
+        int json = genson.serializeBytes(original).length;
+        int inline = new TranslationCodec.Builder().stringTable(false).build().encode(original).length;
+        int table = codec.encode(original).length;
+
+        assertThat(inline).isLessThan(json / 2);
+        assertThat(table).isLessThan(inline);
+    }
+
+    @Test
+    public void nullTextsAndListsSurvive() throws IOException {
+        Word word = new Word();
+        word.setText("取得");
+        word.setCandidates(Arrays.asList(new Candidates("get"), new Candidates(null), new Candidates("get")));
+        Translation withWords = new Translation();
+        withWords.setSuccessful(true);
+        withWords.setWords(Collections.singletonList(word));
+        Translation withoutWords = new Translation();
+        withoutWords.setText("");
+        List<Translation> original = Arrays.asList(withoutWords, withWords);
+
+        assertThat(codec.decode(codec.encode(original))).isEqualTo(original);
+        assertThat(codec.decode(codec.encode(Collections.<Translation>emptyList()))).isEmpty();
+        assertThat(codec.decode(codec.encode(null))).isNull();
+    }
+
+    @Test
+    public void nullElementsSurvive() throws IOException {
+        Word word = new Word();
+        word.setText("取得");
+        word.setCandidates(Arrays.asList(null, new Candidates("get"), new Candidates(null), null, new Candidates("get")));
+        Translation translation = new Translation();
+        translation.setText("取得");
+        translation.setWords(Arrays.asList(null, word));
+        List<Translation> original = Arrays.asList(translation, null);
+        TranslationCodec inline = new TranslationCodec.Builder().stringTable(false).build();
+
+        List<Translation> decoded = codec.decode(codec.encode(original));
+        assertThat(decoded).isEqualTo(original);
+        assertThat(decoded.get(0).getWords().get(1).getCandidates())
+                .containsExactly(null, new Candidates("get"), new Candidates(null), null, new Candidates("get"));
+        assertThat(inline.decode(inline.encode(original))).isEqualTo(original);
+    }
+
+    @Test
+    public void streamsCarrySeveralResults() throws IOException {
+        List<Translation> first = decode(CodicStubServer.responseBody("取得", 1, 4));
+        List<Translation> second = decode(CodicStubServer.responseBody("削除", 3, 2));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        codec.write(first, out);
+        codec.write(second, out);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        assertThat(codec.read(in)).isEqualTo(first);
+        assertThat(codec.read(in)).isEqualTo(second);
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.size());
+        codec.write(first, buffer);
+        codec.write(second, buffer);
+        buffer.flip();
+        assertThat(codec.read(buffer)).isEqualTo(first);
+        assertThat(codec.read(buffer)).isEqualTo(second);
+        assertThat(buffer.hasRemaining()).isFalse();
+    }
+
+    @Test
+    public void malformedInputIsRejected() {
+        byte[] encoded = codec.encode(decode(CodicStubServer.responseBody("取得", 1, 4)));
+        byte[] newer = encoded.clone();
+        newer[1]++;
+
+        assertRejected(newer, "version");
+        assertRejected(Arrays.copyOf(encoded, encoded.length / 2), "Truncated");
+        assertRejected("[]".getBytes(), "Not encoded");
+    }
+
+    private void assertRejected(byte[] bytes, String message) {
+        try {
+            codec.decode(bytes);
+            throw new AssertionError("expected failure");
+        } catch (IOException e) {
+            assertThat(e).hasMessageContaining(message);
+        }
+    }
+}